@@ -1,6 +1,8 @@
 package fr.nhsoul.natsbridge.bungeecord;
 
 import fr.nhsoul.natsbridge.core.NatsBridge;
+import fr.nhsoul.natsbridge.core.api.ScopedNatsAPI;
+import fr.nhsoul.natsbridge.core.subscription.SubscriptionStats;
 import net.md_5.bungee.api.ChatColor;
 import net.md_5.bungee.api.CommandSender;
 import net.md_5.bungee.api.plugin.Command;
@@ -8,7 +10,9 @@ import net.md_5.bungee.api.plugin.TabExecutor;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 
@@ -103,6 +107,11 @@ public class BungeeCordNatsCommand extends Command implements TabExecutor {
         sender.sendMessage(ChatColor.YELLOW + "Connected: " +
                 (connected ? ChatColor.GREEN + "Yes" : ChatColor.RED + "No"));
         sender.sendMessage(ChatColor.YELLOW + "Status: " + ChatColor.WHITE + status);
+        for (Map.Entry<String, String> lane : natsBridge.getLaneStatuses().entrySet()) {
+            sender.sendMessage(ChatColor.YELLOW + "Lane " + lane.getKey() + ": " + ChatColor.WHITE + lane.getValue());
+        }
+        sender.sendMessage(ChatColor.YELLOW + "Batched messages dropped: " + ChatColor.WHITE +
+                natsBridge.getBatchingPublisher().getDroppedCount());
 
         // Configuration information
         sender.sendMessage(ChatColor.YELLOW + "Servers: " + ChatColor.WHITE +
@@ -119,6 +128,26 @@ public class BungeeCordNatsCommand extends Command implements TabExecutor {
         } else {
             sender.sendMessage(ChatColor.YELLOW + "TLS: " + ChatColor.RED + "Disabled");
         }
+
+        sender.sendMessage(ChatColor.YELLOW + "Ordered deliveries queued: " + ChatColor.WHITE +
+                natsBridge.getSubscriptionManager().getOrderedQueueDepth());
+
+        // Subscription information
+        List<SubscriptionStats> subscriptions = natsBridge.getSubscriptionManager().getSubscriptionStats();
+        sender.sendMessage(ChatColor.YELLOW + "Subscriptions: " + ChatColor.WHITE + subscriptions.size()
+                + " (" + natsBridge.getSubscriptionManager().getServerSubscriptionCount() + " on the server)");
+        for (SubscriptionStats stats : subscriptions) {
+            sender.sendMessage(ChatColor.GRAY + " - " + stats);
+        }
+
+        // Per-plugin accounting
+        Collection<ScopedNatsAPI> scopedAPIs = natsBridge.getScopedAPIs();
+        sender.sendMessage(ChatColor.YELLOW + "Plugins: " + ChatColor.WHITE + scopedAPIs.size());
+        for (ScopedNatsAPI scopedAPI : scopedAPIs) {
+            sender.sendMessage(ChatColor.GRAY + " - " + scopedAPI);
+        }
+        sender.sendMessage(ChatColor.YELLOW + "Log messages: " + ChatColor.WHITE +
+                NatsBridge.getLoggerFacade().getCountSummary());
     }
 
     private void testPublish(@NotNull CommandSender sender, @NotNull String subject, @NotNull String message) {
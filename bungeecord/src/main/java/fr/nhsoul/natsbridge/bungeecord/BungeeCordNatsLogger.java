@@ -21,16 +21,23 @@ public class BungeeCordNatsLogger implements NatsLogger {
 
     @Override
     public void info(@NotNull String message, Object... args) {
-        logger.info(format(message, args));
+        if (logger.isLoggable(Level.INFO)) {
+            logger.info(format(message, args));
+        }
     }
 
     @Override
     public void warn(@NotNull String message, Object... args) {
-        logger.warning(format(message, args));
+        if (logger.isLoggable(Level.WARNING)) {
+            logger.warning(format(message, args));
+        }
     }
 
     @Override
     public void error(@NotNull String message, @Nullable Throwable throwable, Object... args) {
+        if (!logger.isLoggable(Level.SEVERE)) {
+            return;
+        }
         if (throwable != null) {
             logger.log(Level.SEVERE, format(message, args), throwable);
         } else {
@@ -40,6 +47,28 @@ public class BungeeCordNatsLogger implements NatsLogger {
 
     @Override
     public void debug(@NotNull String message, Object... args) {
-        logger.log(Level.FINE, format(message, args));
+        if (logger.isLoggable(Level.FINE)) {
+            logger.log(Level.FINE, format(message, args));
+        }
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return logger.isLoggable(Level.INFO);
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return logger.isLoggable(Level.WARNING);
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return logger.isLoggable(Level.SEVERE);
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return logger.isLoggable(Level.FINE);
     }
 }
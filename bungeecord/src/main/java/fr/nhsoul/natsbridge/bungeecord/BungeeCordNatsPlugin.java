@@ -1,15 +1,23 @@
 package fr.nhsoul.natsbridge.bungeecord;
 
+import fr.nhsoul.natsbridge.common.api.DeliveryRouter;
 import fr.nhsoul.natsbridge.common.api.NatsAPI;
 import fr.nhsoul.natsbridge.core.NatsBridge;
+import fr.nhsoul.natsbridge.core.subscription.EventLoopResolver;
+import net.md_5.bungee.api.connection.ProxiedPlayer;
 import net.md_5.bungee.api.plugin.Plugin;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Level;
 
 
@@ -19,10 +27,16 @@ import java.util.logging.Level;
  */
 public class BungeeCordNatsPlugin extends Plugin {
 
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
     private static BungeeCordNatsPlugin instance;
 
     private NatsBridge natsBridge;
 
+    // Resolves the Netty event loop of a player connection (UserConnection.getCh().getHandle().eventLoop())
+    private final EventLoopResolver eventLoops = new EventLoopResolver(NatsBridge.getLoggerFacade(),
+            "getCh", "getHandle", "eventLoop");
+
     @Override
     public void onEnable() {
         instance = this;
@@ -88,13 +102,69 @@ public class BungeeCordNatsPlugin extends Plugin {
     }
 
     /**
-     * Gets the NATS API.
+     * Gets the NATS API of the calling plugin.
+     * <p>
+     * Its traffic is shown by {@code /nats status}, and its subscriptions can be
+     * cancelled at once with {@link NatsBridge#releaseScope(String)} (they are on
+     * proxy shutdown). Callers outside of a plugin get the shared API.
      *
      * @return the NATS API
      */
     @NotNull
     public static NatsAPI getNatsAPI() {
-        return getInstance().getNatsBridge().getAPI();
+        BungeeCordNatsPlugin plugin = getInstance();
+        ClassLoader loader = STACK_WALKER.getCallerClass().getClassLoader();
+        if (loader != BungeeCordNatsPlugin.class.getClassLoader()) {
+            for (Plugin other : plugin.getProxy().getPluginManager().getPlugins()) {
+                if (other.getClass().getClassLoader() == loader) {
+                    return getNatsAPI(other);
+                }
+            }
+        }
+        return plugin.getNatsBridge().getAPI();
+    }
+
+    /**
+     * Gets the NATS API of a plugin.
+     *
+     * @param plugin the plugin owning the subscriptions
+     * @return the NATS API of the plugin
+     */
+    @NotNull
+    public static NatsAPI getNatsAPI(@NotNull Plugin plugin) {
+        return getInstance().getNatsBridge().getScopedAPI(plugin.getDescription().getName());
+    }
+
+    /**
+     * Gets the Netty event loop owning the connection of a player. Running code
+     * touching that connection on its event loop avoids cross-thread handoffs.
+     *
+     * @param player the player
+     * @return the event loop, or null if it cannot be resolved on this proxy version
+     */
+    @Nullable
+    public Executor getEventLoop(@NotNull ProxiedPlayer player) {
+        return eventLoops.resolve(player);
+    }
+
+    /**
+     * Creates a router delivering each message on the event loop of the player it
+     * targets, for {@link NatsAPI#subscribeRouted(String, Consumer, DeliveryRouter)}.
+     * Messages whose player is offline or unknown run on the fallback executor.
+     *
+     * @param playerOf extracts the targeted player from a payload (can return null)
+     * @param fallback the executor used when no player event loop applies
+     * @return the router
+     */
+    @NotNull
+    public static DeliveryRouter playerRouter(@NotNull Function<byte[], UUID> playerOf, @NotNull Executor fallback) {
+        BungeeCordNatsPlugin plugin = getInstance();
+        return (subject, data) -> {
+            UUID playerId = playerOf.apply(data);
+            ProxiedPlayer player = playerId != null ? plugin.getProxy().getPlayer(playerId) : null;
+            Executor eventLoop = player != null ? plugin.getEventLoop(player) : null;
+            return eventLoop != null ? eventLoop : fallback;
+        };
     }
 
     /**
@@ -0,0 +1,32 @@
+package fr.nhsoul.natsbridge.common.annotation;
+
+import fr.nhsoul.natsbridge.common.api.NatsAPI;
+import org.jetbrains.annotations.NotNull;
+
+
+/**
+ * Subscribes the annotated methods of a handler class.
+ * <p>
+ * Implementations are generated by the NatsBridge annotation processor, one per
+ * class declaring {@link NatsSubscribe} or {@link NatsRequestHandler} methods,
+ * and listed in the {@code META-INF/services} index of the plugin so they can
+ * be found with a {@link java.util.ServiceLoader}.
+ */
+public interface NatsBinder {
+
+    /**
+     * Gets the handler class this binder was generated for.
+     *
+     * @return the handler class
+     */
+    @NotNull
+    Class<?> getHandlerType();
+
+    /**
+     * Subscribes every annotated method of a handler.
+     *
+     * @param handler the handler instance, of {@link #getHandlerType()}
+     * @param api     the API to subscribe with
+     */
+    void bind(@NotNull Object handler, @NotNull NatsAPI api);
+}
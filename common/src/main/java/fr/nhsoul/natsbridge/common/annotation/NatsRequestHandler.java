@@ -0,0 +1,59 @@
+package fr.nhsoul.natsbridge.common.annotation;
+
+import fr.nhsoul.natsbridge.common.codec.NatsCodec;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Handles the requests sent on a NATS subject with a method.
+ * <p>
+ * The method must not be private and takes a single parameter, either:
+ * <ul>
+ *     <li>a payload, decoded like {@link NatsSubscribe} parameters: the returned value
+ *     is encoded and sent as the reply. Returning a
+ *     {@link java.util.concurrent.CompletableFuture} replies once it completes.</li>
+ *     <li>a {@link fr.nhsoul.natsbridge.common.api.NatsRequest}: the method returns
+ *     {@code void} and replies itself.</li>
+ * </ul>
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface NatsRequestHandler {
+
+    /**
+     * The NATS subject to handle requests on.
+     */
+    String value();
+
+    /**
+     * {@code true} to process requests on a dedicated dispatcher thread,
+     * {@code false} to process them on the shared low-latency dispatcher.
+     */
+    boolean async() default false;
+
+    /**
+     * Queue group to join, so each of the requests is handled by a single member
+     * of the group. Empty (the default) for a regular subscription.
+     */
+    String queue() default "";
+
+    /**
+     * Codec decoding the request payload parameter. Must have a public no-arg
+     * constructor. Defaults to the built-in codec of the parameter type.
+     */
+    @SuppressWarnings("rawtypes")
+    Class<? extends NatsCodec> codec() default NatsCodec.class;
+
+    /**
+     * Codec encoding the returned reply. Must have a public no-arg constructor.
+     * Defaults to the built-in codec of the return type.
+     */
+    @SuppressWarnings("rawtypes")
+    Class<? extends NatsCodec> replyCodec() default NatsCodec.class;
+}
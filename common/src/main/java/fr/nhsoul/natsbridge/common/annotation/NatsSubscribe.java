@@ -0,0 +1,53 @@
+package fr.nhsoul.natsbridge.common.annotation;
+
+import fr.nhsoul.natsbridge.common.codec.NatsCodec;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+
+/**
+ * Subscribes a method to a NATS subject.
+ * <p>
+ * The NatsBridge annotation processor generates a {@link NatsBinder} for the
+ * declaring class, which subscribes the method with a plain consumer calling it
+ * directly (no reflection at delivery time). The binder is registered with
+ * {@link fr.nhsoul.natsbridge.common.api.NatsAPI#registerHandlers(Object)}.
+ * <p>
+ * The method must not be private and takes either no parameter or a single
+ * payload parameter, decoded by a built-in codec ({@code byte[]}, {@code String},
+ * {@code ByteBuffer}, primitives and their wrappers, {@code UUID}, enums) or by
+ * the {@link #codec()} given here.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface NatsSubscribe {
+
+    /**
+     * The NATS subject to subscribe to.
+     */
+    String value();
+
+    /**
+     * {@code true} to process messages on a dedicated dispatcher thread,
+     * {@code false} to process them on the shared low-latency dispatcher.
+     */
+    boolean async() default false;
+
+    /**
+     * Queue group to join, so each of the messages is handled by a single member
+     * of the group. Empty (the default) for a regular subscription.
+     */
+    String queue() default "";
+
+    /**
+     * Codec decoding the payload parameter. Must have a public no-arg constructor.
+     * Defaults to the built-in codec of the parameter type.
+     */
+    @SuppressWarnings("rawtypes")
+    Class<? extends NatsCodec> codec() default NatsCodec.class;
+}
@@ -0,0 +1,20 @@
+package fr.nhsoul.natsbridge.common.api;
+
+
+/**
+ * Thread on which the messages of a subscription are processed.
+ */
+public enum DeliveryMode {
+
+    /**
+     * Messages are processed on the shared low-latency dispatcher. Handlers must
+     * be short and must not block.
+     */
+    SYNC,
+
+    /**
+     * Messages are processed on a dispatcher thread dedicated to the subscription,
+     * so a slow handler does not hold up the others.
+     */
+    ASYNC
+}
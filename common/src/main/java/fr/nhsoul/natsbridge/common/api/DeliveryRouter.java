@@ -0,0 +1,31 @@
+package fr.nhsoul.natsbridge.common.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.Executor;
+
+
+/**
+ * Chooses, for each received message, the executor its consumer runs on.
+ * Used with {@link NatsAPI#subscribeRouted(String, java.util.function.Consumer, DeliveryRouter)},
+ * e.g. to run the consumer on the network thread owning the connection of the
+ * player the message is about.
+ * <p>
+ * Routing is called on the dispatcher thread for every message, so it must be fast
+ * and must not block.
+ */
+@FunctionalInterface
+public interface DeliveryRouter {
+
+    /**
+     * Chooses the executor for a message.
+     *
+     * @param subject the subject the message was received on
+     * @param data    the message payload
+     * @return the executor running the consumer, or null to run it directly on the
+     *         dispatcher thread
+     */
+    @Nullable
+    Executor route(@NotNull String subject, @NotNull byte[] data);
+}
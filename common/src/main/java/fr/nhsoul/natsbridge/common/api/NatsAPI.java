@@ -3,8 +3,14 @@ package fr.nhsoul.natsbridge.common.api;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 
 /**
@@ -32,25 +38,131 @@ public interface NatsAPI {
     void publishString(@NotNull String subject, @Nullable String data);
 
     /**
-     * Sends a raw message asynchronously.
+     * Sends the remaining bytes of a buffer as a message on a given subject.
+     * <p>
+     * A heap buffer exactly covering its backing array is handed to the connection
+     * without copying; the array must then not be modified until the message is
+     * written. Other buffers (direct, read-only or slices of a larger array) are
+     * copied once, since the NATS client only accepts whole arrays.
+     * The buffer position is left unchanged.
      *
      * @param subject the NATS subject to publish on
-     * @param data    the data to send (can be null for an empty message)
-     * @return a CompletableFuture that completes when the message is sent
+     * @param payload the data to send (can be null for an empty message)
      * @throws IllegalStateException if the NATS connection is not available
      */
+    void publish(@NotNull String subject, @Nullable ByteBuffer payload);
+
+    /**
+     * Sends a raw message asynchronously on the dedicated publish executor.
+     *
+     * @param subject the NATS subject to publish on
+     * @param data    the data to send (can be null for an empty message)
+     * @return a CompletableFuture that completes once the server has acknowledged
+     *         the message (flush round trip), or exceptionally if the publication
+     *         or the acknowledgement failed
+     */
     CompletableFuture<Void> publishRawAsync(@NotNull String subject, @Nullable byte[] data);
 
     /**
-     * Sends a UTF-8 string asynchronously.
+     * Sends a UTF-8 string asynchronously on the dedicated publish executor.
      *
      * @param subject the NATS subject to publish on
      * @param data    the string to send (can be null for an empty message)
-     * @return a CompletableFuture that completes when the message is sent
-     * @throws IllegalStateException if the NATS connection is not available
+     * @return a CompletableFuture that completes once the server has acknowledged
+     *         the message (flush round trip), or exceptionally if the publication
+     *         or the acknowledgement failed
      */
     CompletableFuture<Void> publishStringAsync(@NotNull String subject, @Nullable String data);
 
+    /**
+     * Sends a request and waits asynchronously for the first reply.
+     * <p>
+     * Replies of all requests are received through a single shared inbox
+     * subscription. The returned future is completed on the inbox dispatcher
+     * thread: dependent stages should be short or use the {@code *Async} variants.
+     *
+     * @param subject the NATS subject to send the request on
+     * @param data    the request data (can be null for an empty message)
+     * @param timeout how long to wait for the reply
+     * @return a CompletableFuture completed with the reply data, or exceptionally
+     *         with a {@link java.util.concurrent.TimeoutException} if no reply came in
+     *         time, or a {@link fr.nhsoul.natsbridge.common.exception.NatsException.RequestException}
+     *         if nobody listens on the subject
+     * @throws IllegalStateException if the NATS connection is not available
+     */
+    CompletableFuture<byte[]> requestAsync(@NotNull String subject, @Nullable byte[] data,
+            @NotNull Duration timeout);
+
+    /**
+     * Sends a request once and gathers the replies of several responders.
+     * <p>
+     * The future completes as soon as {@code expectedResponders} replies were
+     * received, or when the timeout elapses with the replies received so far.
+     * A timeout is not an error: the result is then partial, possibly empty.
+     *
+     * @param subject            the NATS subject to send the request on
+     * @param data               the request data (can be null for an empty message)
+     * @param expectedResponders the number of replies after which to stop waiting
+     * @param timeout            the maximum time to wait for the replies
+     * @return a CompletableFuture completed with the replies, in arrival order
+     * @throws IllegalStateException if the NATS connection is not available
+     */
+    default CompletableFuture<List<byte[]>> scatterGather(@NotNull String subject, @Nullable byte[] data,
+            int expectedResponders, @NotNull Duration timeout) {
+        return scatterGather(subject, data, expectedResponders, timeout, null);
+    }
+
+    /**
+     * Sends a request once and gathers the replies of several responders,
+     * streaming each reply to a consumer as soon as it arrives.
+     *
+     * @param subject            the NATS subject to send the request on
+     * @param data               the request data (can be null for an empty message)
+     * @param expectedResponders the number of replies after which to stop waiting
+     * @param timeout            the maximum time to wait for the replies
+     * @param onReply            called with each reply on the inbox dispatcher thread
+     *                           (can be null)
+     * @return a CompletableFuture completed with the replies, in arrival order
+     * @throws IllegalStateException if the NATS connection is not available
+     */
+    CompletableFuture<List<byte[]>> scatterGather(@NotNull String subject, @Nullable byte[] data,
+            int expectedResponders, @NotNull Duration timeout, @Nullable Consumer<byte[]> onReply);
+
+    /**
+     * Subscribes a request handler to a NATS subject. The handler answers through
+     * {@link NatsRequest#reply(byte[])}, either directly or later from another thread.
+     *
+     * @param subject the NATS subject to subscribe to
+     * @param handler the handler that will process the requests
+     * @param async   {@code true} to process requests on a dedicated dispatcher
+     *                thread, {@code false} to process them on the shared
+     *                low-latency dispatcher
+     * @return a handle unsubscribing this subscription only
+     * @throws IllegalStateException if the NATS connection is not available
+     */
+    default NatsSubscription subscribeRequest(@NotNull String subject,
+            @NotNull Consumer<NatsRequest> handler,
+            boolean async) {
+        return subscribeRequest(subject, null, handler, async ? DeliveryMode.ASYNC : DeliveryMode.SYNC);
+    }
+
+    /**
+     * Subscribes a request handler to a NATS subject as a member of a queue group,
+     * so each request is handled by a single server of the group.
+     *
+     * @param subject    the NATS subject to subscribe to
+     * @param queueGroup the queue group name, or null for a regular subscription
+     * @param handler    the handler that will process the requests
+     * @param mode       the thread the requests are processed on
+     * @return a handle unsubscribing this subscription only
+     * @throws IllegalArgumentException if the queue group name is blank or
+     *                                  contains spaces
+     */
+    NatsSubscription subscribeRequest(@NotNull String subject,
+            @Nullable String queueGroup,
+            @NotNull Consumer<NatsRequest> handler,
+            @NotNull DeliveryMode mode);
+
     /**
      * Subscribes a Consumer to a NATS subject for low-level processing.
      * <p>
@@ -60,13 +172,157 @@ public interface NatsAPI {
      * @param subject  the NATS subject to subscribe to
      * @param consumer the Consumer that will process the messages (receives raw
      *                 data as byte[])
-     * @param async    {@code true} to process messages asynchronously,
-     *                 {@code false} for synchronous processing
+     * @param async    {@code true} to process messages on a dedicated dispatcher
+     *                 thread, {@code false} to process them on the shared
+     *                 low-latency dispatcher
+     * @return a handle unsubscribing this subscription only
      * @throws IllegalStateException if the NATS connection is not available
      */
-    void subscribeSubject(@NotNull String subject,
+    default NatsSubscription subscribeSubject(@NotNull String subject,
             @NotNull Consumer<byte[]> consumer,
-            boolean async);
+            boolean async) {
+        return subscribeSubject(subject, null, consumer, async ? DeliveryMode.ASYNC : DeliveryMode.SYNC);
+    }
+
+    /**
+     * Subscribes a Consumer to a NATS subject, running it on the given executor.
+     * <p>
+     * Messages are received on the shared low-latency dispatcher and handed to the
+     * executor as they arrive, e.g. to process them on a platform thread. The
+     * executor decides the ordering and threading of the consumer calls.
+     *
+     * @param subject  the NATS subject to subscribe to
+     * @param consumer the Consumer that will process the messages (receives raw
+     *                 data as byte[])
+     * @param executor the executor running the consumer
+     * @return a handle unsubscribing this subscription only
+     * @throws IllegalStateException if the NATS connection is not available
+     */
+    NatsSubscription subscribeSubject(@NotNull String subject,
+            @NotNull Consumer<byte[]> consumer,
+            @NotNull Executor executor);
+
+    /**
+     * Subscribes a Consumer to a NATS subject, running it on an executor chosen
+     * per message by a router.
+     * <p>
+     * Messages are received on the shared low-latency dispatcher, which calls the
+     * router and hands the message to the returned executor. Messages sent to the
+     * same executor keep their order if the executor runs its tasks in order (as
+     * Netty event loops do).
+     *
+     * @param subject  the NATS subject to subscribe to
+     * @param consumer the Consumer that will process the messages (receives raw
+     *                 data as byte[])
+     * @param router   chooses the executor of each message
+     * @return a handle unsubscribing this subscription only
+     * @throws IllegalStateException if the NATS connection is not available
+     */
+    NatsSubscription subscribeRouted(@NotNull String subject,
+            @NotNull Consumer<byte[]> consumer,
+            @NotNull DeliveryRouter router);
+
+    /**
+     * Subscribes a Consumer to the latest value of a NATS subject.
+     * <p>
+     * Intended for state-like subjects (TPS, player counts, snapshots) where only
+     * the newest message matters: each subject has a single slot, overwritten by
+     * every message received, and the consumer only sees the most recent value
+     * when it runs. Intermediate updates received in the meantime are skipped.
+     *
+     * @param subject  the NATS subject to subscribe to (wildcards give one slot
+     *                 per matching subject)
+     * @param consumer the Consumer that will process the latest values
+     * @return a handle unsubscribing this subscription only
+     * @throws IllegalStateException if the NATS connection is not available
+     */
+    default NatsSubscription subscribeLatest(@NotNull String subject, @NotNull Consumer<byte[]> consumer) {
+        return subscribeLatest(subject, Function.identity(), (key, data) -> consumer.accept(data));
+    }
+
+    /**
+     * Subscribes a Consumer to the latest values of a NATS subject, keeping one
+     * slot per key extracted from the message subjects.
+     * <p>
+     * Messages are received on the shared low-latency dispatcher, which only
+     * overwrites the slot of their key; the consumer runs on a virtual thread,
+     * once per key with the most recent value.
+     *
+     * @param subject      the NATS subject to subscribe to
+     * @param keyExtractor gets the slot key of a message from its subject (e.g. the
+     *                     server name ending {@code server.tps.<server>})
+     * @param consumer     the consumer receiving the key and its latest value
+     * @return a handle unsubscribing this subscription only
+     * @throws IllegalStateException if the NATS connection is not available
+     */
+    NatsSubscription subscribeLatest(@NotNull String subject,
+            @NotNull Function<String, String> keyExtractor,
+            @NotNull BiConsumer<String, byte[]> consumer);
+
+    /**
+     * Subscribes a Consumer receiving the messages of a NATS subject in batches.
+     * <p>
+     * Messages are received on the shared low-latency dispatcher, which only
+     * appends them to the current batch. A batch is handed to the consumer as soon
+     * as it holds {@code maxBatch} messages or its first message has waited for
+     * {@code maxWait}, so consumers writing to a database can use bulk writes.
+     * Batches are delivered in order on a virtual thread, one at a time.
+     *
+     * @param subject  the NATS subject to subscribe to
+     * @param maxBatch the maximum number of messages per batch
+     * @param maxWait  the maximum time a message waits for its batch to be delivered
+     * @param consumer the Consumer that will process the batches (the list belongs
+     *                 to the consumer)
+     * @return a handle unsubscribing this subscription only
+     * @throws IllegalArgumentException if maxBatch or maxWait is not positive
+     * @throws IllegalStateException    if the NATS connection is not available
+     */
+    NatsSubscription subscribeBatch(@NotNull String subject,
+            int maxBatch,
+            @NotNull Duration maxWait,
+            @NotNull Consumer<List<byte[]>> consumer);
+
+    /**
+     * Subscribes a Consumer to a NATS subject, consuming messages in parallel
+     * across keys but in order within a key.
+     * <p>
+     * Messages are received on the shared low-latency dispatcher, which extracts
+     * their key and hands them to one of a fixed set of serial executors, chosen by
+     * key. Messages with equal keys (e.g. about the same player) are consumed one
+     * at a time in the order they were received, including across the subjects of
+     * different ordered subscriptions, while other keys are consumed in parallel.
+     *
+     * @param subject     the NATS subject to subscribe to
+     * @param orderingKey extracts the key of each message
+     * @param consumer    the Consumer that will process the messages
+     * @return a handle unsubscribing this subscription only
+     * @throws IllegalStateException if the NATS connection is not available
+     */
+    NatsSubscription subscribeOrdered(@NotNull String subject,
+            @NotNull OrderingKey orderingKey,
+            @NotNull Consumer<byte[]> consumer);
+
+    /**
+     * Subscribes a Consumer to a NATS subject as a member of a queue group.
+     * <p>
+     * Each message is delivered to a single member of the queue group, so the
+     * work is spread across every server subscribing with the same group name.
+     * The queue group is kept when subscriptions are re-applied after a reconnect.
+     *
+     * @param subject    the NATS subject to subscribe to
+     * @param queueGroup the queue group name, or null for a regular subscription
+     *                   receiving every message
+     * @param consumer   the Consumer that will process the messages (receives raw
+     *                   data as byte[])
+     * @param mode       the thread the messages are processed on
+     * @return a handle unsubscribing this subscription only
+     * @throws IllegalArgumentException if the queue group name is blank or
+     *                                  contains spaces
+     */
+    NatsSubscription subscribeSubject(@NotNull String subject,
+            @Nullable String queueGroup,
+            @NotNull Consumer<byte[]> consumer,
+            @NotNull DeliveryMode mode);
 
     /**
      * Subscribes a Consumer to a NATS subject for text message processing.
@@ -77,16 +333,87 @@ public interface NatsAPI {
      * @param subject  the NATS subject to subscribe to
      * @param consumer the Consumer that will process the messages (receives messages
      *                 as String)
-     * @param async    {@code true} to process messages asynchronously,
-     *                 {@code false} for synchronous processing
+     * @param async    {@code true} to process messages on a dedicated dispatcher
+     *                 thread, {@code false} to process them on the shared
+     *                 low-latency dispatcher
+     * @return a handle unsubscribing this subscription only
+     * @throws IllegalStateException if the NATS connection is not available
+     */
+    default NatsSubscription subscribeStringSubject(@NotNull String subject,
+            @NotNull Consumer<String> consumer,
+            boolean async) {
+        return subscribeStringSubject(subject, consumer, async, StringDecoding.STANDARD);
+    }
+
+    /**
+     * Subscribes a Consumer to a NATS subject for text message processing,
+     * with a choice of decoding mode.
+     * <p>
+     * {@link StringDecoding#CACHED} suits high-frequency subjects carrying a small
+     * set of repeated values: identical payloads are decoded once and the same
+     * String instance is handed to the consumer afterwards.
+     *
+     * @param subject  the NATS subject to subscribe to
+     * @param consumer the Consumer that will process the messages (receives messages
+     *                 as String)
+     * @param async    {@code true} to process messages on a dedicated dispatcher
+     *                 thread, {@code false} to process them on the shared
+     *                 low-latency dispatcher
+     * @param decoding how payloads are decoded into strings
+     * @return a handle unsubscribing this subscription only
      * @throws IllegalStateException if the NATS connection is not available
      */
-    void subscribeStringSubject(@NotNull String subject,
+    NatsSubscription subscribeStringSubject(@NotNull String subject,
             @NotNull Consumer<String> consumer,
+            boolean async,
+            @NotNull StringDecoding decoding);
+
+    /**
+     * Subscribes a Consumer to a NATS subject, receiving each message as a
+     * read-only {@link ByteBuffer} view of the received data (no copy).
+     * Messages are processed on the shared low-latency dispatcher.
+     *
+     * @param subject  the NATS subject to subscribe to
+     * @param consumer the Consumer that will process the messages
+     * @return a handle unsubscribing this subscription only
+     * @throws IllegalStateException if the NATS connection is not available
+     */
+    default NatsSubscription subscribeBuffer(@NotNull String subject, @NotNull Consumer<ByteBuffer> consumer) {
+        return subscribeBuffer(subject, consumer, false);
+    }
+
+    /**
+     * Subscribes a Consumer to a NATS subject, receiving each message as a
+     * read-only {@link ByteBuffer} view of the received data (no copy).
+     *
+     * @param subject  the NATS subject to subscribe to
+     * @param consumer the Consumer that will process the messages
+     * @param async    {@code true} to process messages on a dedicated dispatcher
+     *                 thread, {@code false} to process them on the shared
+     *                 low-latency dispatcher
+     * @return a handle unsubscribing this subscription only
+     * @throws IllegalStateException if the NATS connection is not available
+     */
+    NatsSubscription subscribeBuffer(@NotNull String subject,
+            @NotNull Consumer<ByteBuffer> consumer,
             boolean async);
 
     /**
-     * Cancels the active subscription on a given NATS subject.
+     * Subscribes the {@link fr.nhsoul.natsbridge.common.annotation.NatsSubscribe} and
+     * {@link fr.nhsoul.natsbridge.common.annotation.NatsRequestHandler} methods of a
+     * handler, through the binder generated for its class by the annotation processor.
+     * Usually called when the plugin is enabled.
+     *
+     * @param handler the object declaring the annotated methods
+     * @throws IllegalArgumentException if no binder was generated for the handler
+     *                                  class (the processor did not run on it)
+     */
+    void registerHandlers(@NotNull Object handler);
+
+    /**
+     * Cancels every subscription on a given NATS subject, including the ones made
+     * by other plugins sharing this API. Use {@link NatsSubscription#unsubscribe()}
+     * to cancel a single subscription.
      * <p>
      * If no subscription exists for this subject, this call has no effect.
      *
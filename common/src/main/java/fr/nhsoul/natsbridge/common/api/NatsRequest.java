@@ -0,0 +1,55 @@
+package fr.nhsoul.natsbridge.common.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+
+/**
+ * A request received by a handler registered with
+ * {@link NatsAPI#subscribeRequest(String, java.util.function.Consumer, boolean)}.
+ */
+public interface NatsRequest {
+
+    /**
+     * Gets the subject the request was sent on.
+     *
+     * @return the request subject
+     */
+    @NotNull
+    String getSubject();
+
+    /**
+     * Gets the subject the reply must be sent to.
+     *
+     * @return the reply subject, or null if the sender does not expect a reply
+     */
+    @Nullable
+    String getReplyTo();
+
+    /**
+     * Gets the request payload.
+     *
+     * @return the request data
+     */
+    @Nullable
+    byte[] getData();
+
+    /**
+     * Sends a reply to the requester. Can be called from any thread, so the
+     * request can be answered after some asynchronous work.
+     *
+     * @param data the reply data (can be null for an empty reply)
+     * @throws IllegalStateException if the request has no reply subject or the
+     *                               NATS connection is not available
+     */
+    void reply(@Nullable byte[] data);
+
+    /**
+     * Sends a UTF-8 string reply to the requester.
+     *
+     * @param data the reply string (can be null for an empty reply)
+     * @throws IllegalStateException if the request has no reply subject or the
+     *                               NATS connection is not available
+     */
+    void replyString(@Nullable String data);
+}
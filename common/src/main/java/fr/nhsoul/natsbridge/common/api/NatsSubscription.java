@@ -0,0 +1,51 @@
+package fr.nhsoul.natsbridge.common.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+
+/**
+ * Handle of a single subscription, returned by the {@code subscribe*} methods of
+ * {@link NatsAPI}.
+ * <p>
+ * Several consumers of the same subject share one server subscription, held as
+ * long as one of them is subscribed: unsubscribing a handle only stops its own
+ * consumer, the others keep receiving messages. The subscription survives
+ * reconnections until it is unsubscribed.
+ */
+public interface NatsSubscription extends AutoCloseable {
+
+    /**
+     * Gets the subject this subscription listens on (possibly with wildcards).
+     */
+    @NotNull
+    String getSubject();
+
+    /**
+     * Gets the queue group of this subscription.
+     *
+     * @return the queue group, or null for a regular subscription
+     */
+    @Nullable
+    String getQueueGroup();
+
+    /**
+     * Checks if this subscription is receiving messages: it has not been
+     * unsubscribed and the connection is established.
+     */
+    boolean isActive();
+
+    /**
+     * Stops delivering messages to this subscription. Messages it has not
+     * consumed yet are discarded. Calling it again has no effect.
+     */
+    void unsubscribe();
+
+    /**
+     * Same as {@link #unsubscribe()}, for try-with-resources.
+     */
+    @Override
+    default void close() {
+        unsubscribe();
+    }
+}
@@ -0,0 +1,30 @@
+package fr.nhsoul.natsbridge.common.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+
+/**
+ * Extracts, for each received message, the key its delivery is ordered by.
+ * Used with {@link NatsAPI#subscribeOrdered(String, OrderingKey, java.util.function.Consumer)}:
+ * messages with equal keys are consumed one at a time in the order they were
+ * received, while messages with different keys may be consumed in parallel.
+ * <p>
+ * The key is extracted on the dispatcher thread for every message, so it must be
+ * fast and must not block.
+ */
+@FunctionalInterface
+public interface OrderingKey {
+
+    /**
+     * Extracts the ordering key of a message, e.g. the player UUID ending its
+     * subject or starting its payload.
+     *
+     * @param subject the subject the message was received on
+     * @param data    the message payload
+     * @return the key, compared with {@code equals}; messages with a null key are
+     *         ordered with each other
+     */
+    @Nullable
+    Object extract(@NotNull String subject, @NotNull byte[] data);
+}
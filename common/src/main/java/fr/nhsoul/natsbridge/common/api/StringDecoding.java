@@ -0,0 +1,21 @@
+package fr.nhsoul.natsbridge.common.api;
+
+
+/**
+ * How received payloads are decoded into strings by
+ * {@link NatsAPI#subscribeStringSubject(String, java.util.function.Consumer, boolean, StringDecoding)}.
+ */
+public enum StringDecoding {
+
+    /**
+     * Every message is decoded into a new String.
+     */
+    STANDARD,
+
+    /**
+     * Short payloads are looked up in a small bounded cache of previously decoded
+     * strings, so subjects carrying a limited set of repeated values (server names,
+     * states...) reuse the same String instances instead of allocating new ones.
+     */
+    CACHED
+}
@@ -0,0 +1,236 @@
+package fr.nhsoul.natsbridge.common.codec;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+
+/**
+ * Built-in payload codecs used by the code generated for annotated handlers.
+ * <p>
+ * Strings and enum names are UTF-8 text. Numbers and booleans are fixed-size
+ * big-endian binary, as written by {@link ByteBuffer}; a {@link UUID} is its
+ * two longs (16 bytes). Buffers are read-only views over the received array.
+ * A null value is encoded as an empty message.
+ */
+public final class Codecs {
+
+    private Codecs() {
+    }
+
+    @Nullable
+    public static byte[] encodeBytes(@Nullable byte[] value) {
+        return value;
+    }
+
+    @NotNull
+    public static byte[] decodeBytes(@NotNull byte[] data) {
+        return data;
+    }
+
+    @Nullable
+    public static byte[] encodeString(@Nullable String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    @NotNull
+    public static String decodeString(@NotNull byte[] data) {
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    @Nullable
+    public static byte[] encodeBuffer(@Nullable ByteBuffer value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] data = new byte[value.remaining()];
+        value.get(value.position(), data);
+        return data;
+    }
+
+    @NotNull
+    public static ByteBuffer decodeBuffer(@NotNull byte[] data) {
+        return ByteBuffer.wrap(data).asReadOnlyBuffer();
+    }
+
+    @NotNull
+    public static byte[] encodeBoolean(boolean value) {
+        return new byte[]{(byte) (value ? 1 : 0)};
+    }
+
+    @Nullable
+    public static byte[] encodeBoolean(@Nullable Boolean value) {
+        return value != null ? encodeBoolean(value.booleanValue()) : null;
+    }
+
+    public static boolean decodeBoolean(@NotNull byte[] data) {
+        checkLength(data, 1, "boolean");
+        return data[0] != 0;
+    }
+
+    @NotNull
+    public static byte[] encodeByte(byte value) {
+        return new byte[]{value};
+    }
+
+    @Nullable
+    public static byte[] encodeByte(@Nullable Byte value) {
+        return value != null ? encodeByte(value.byteValue()) : null;
+    }
+
+    public static byte decodeByte(@NotNull byte[] data) {
+        checkLength(data, 1, "byte");
+        return data[0];
+    }
+
+    @NotNull
+    public static byte[] encodeShort(short value) {
+        return new byte[]{(byte) (value >> 8), (byte) value};
+    }
+
+    @Nullable
+    public static byte[] encodeShort(@Nullable Short value) {
+        return value != null ? encodeShort(value.shortValue()) : null;
+    }
+
+    public static short decodeShort(@NotNull byte[] data) {
+        checkLength(data, Short.BYTES, "short");
+        return (short) (((data[0] & 0xFF) << 8) | (data[1] & 0xFF));
+    }
+
+    @NotNull
+    public static byte[] encodeChar(char value) {
+        return new byte[]{(byte) (value >> 8), (byte) value};
+    }
+
+    @Nullable
+    public static byte[] encodeChar(@Nullable Character value) {
+        return value != null ? encodeChar(value.charValue()) : null;
+    }
+
+    public static char decodeChar(@NotNull byte[] data) {
+        checkLength(data, Character.BYTES, "char");
+        return (char) (((data[0] & 0xFF) << 8) | (data[1] & 0xFF));
+    }
+
+    @NotNull
+    public static byte[] encodeInt(int value) {
+        byte[] data = new byte[Integer.BYTES];
+        writeInt(data, 0, value);
+        return data;
+    }
+
+    @Nullable
+    public static byte[] encodeInt(@Nullable Integer value) {
+        return value != null ? encodeInt(value.intValue()) : null;
+    }
+
+    public static int decodeInt(@NotNull byte[] data) {
+        checkLength(data, Integer.BYTES, "int");
+        return readInt(data, 0);
+    }
+
+    @NotNull
+    public static byte[] encodeLong(long value) {
+        byte[] data = new byte[Long.BYTES];
+        writeLong(data, 0, value);
+        return data;
+    }
+
+    @Nullable
+    public static byte[] encodeLong(@Nullable Long value) {
+        return value != null ? encodeLong(value.longValue()) : null;
+    }
+
+    public static long decodeLong(@NotNull byte[] data) {
+        checkLength(data, Long.BYTES, "long");
+        return readLong(data, 0);
+    }
+
+    @NotNull
+    public static byte[] encodeFloat(float value) {
+        return encodeInt(Float.floatToRawIntBits(value));
+    }
+
+    @Nullable
+    public static byte[] encodeFloat(@Nullable Float value) {
+        return value != null ? encodeFloat(value.floatValue()) : null;
+    }
+
+    public static float decodeFloat(@NotNull byte[] data) {
+        return Float.intBitsToFloat(decodeInt(data));
+    }
+
+    @NotNull
+    public static byte[] encodeDouble(double value) {
+        return encodeLong(Double.doubleToRawLongBits(value));
+    }
+
+    @Nullable
+    public static byte[] encodeDouble(@Nullable Double value) {
+        return value != null ? encodeDouble(value.doubleValue()) : null;
+    }
+
+    public static double decodeDouble(@NotNull byte[] data) {
+        return Double.longBitsToDouble(decodeLong(data));
+    }
+
+    @Nullable
+    public static byte[] encodeUuid(@Nullable UUID value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] data = new byte[2 * Long.BYTES];
+        writeLong(data, 0, value.getMostSignificantBits());
+        writeLong(data, Long.BYTES, value.getLeastSignificantBits());
+        return data;
+    }
+
+    @NotNull
+    public static UUID decodeUuid(@NotNull byte[] data) {
+        checkLength(data, 2 * Long.BYTES, "UUID");
+        return new UUID(readLong(data, 0), readLong(data, Long.BYTES));
+    }
+
+    @Nullable
+    public static byte[] encodeEnum(@Nullable Enum<?> value) {
+        return value != null ? encodeString(value.name()) : null;
+    }
+
+    @NotNull
+    public static <E extends Enum<E>> E decodeEnum(@NotNull byte[] data, @NotNull Class<E> type) {
+        return Enum.valueOf(type, decodeString(data));
+    }
+
+    private static void checkLength(byte[] data, int expected, String type) {
+        if (data.length != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " bytes for " + type + ", got " + data.length);
+        }
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24)
+                | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8)
+                | (data[offset + 3] & 0xFF);
+    }
+
+    private static long readLong(byte[] data, int offset) {
+        return ((long) readInt(data, offset) << 32) | (readInt(data, offset + 4) & 0xFFFFFFFFL);
+    }
+
+    private static void writeInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+
+    private static void writeLong(byte[] data, int offset, long value) {
+        writeInt(data, offset, (int) (value >>> 32));
+        writeInt(data, offset + 4, (int) value);
+    }
+}
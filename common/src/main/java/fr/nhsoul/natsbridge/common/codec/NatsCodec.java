@@ -0,0 +1,33 @@
+package fr.nhsoul.natsbridge.common.codec;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+
+/**
+ * Converts message payloads to and from a type, for annotated handlers.
+ * Implementations must be thread-safe: a single instance serves every message
+ * of a handler method.
+ *
+ * @param <T> the decoded type
+ */
+public interface NatsCodec<T> {
+
+    /**
+     * Encodes a value into a payload.
+     *
+     * @param value the value to encode (can be null)
+     * @return the payload (can be null for an empty message)
+     */
+    @Nullable
+    byte[] encode(@Nullable T value);
+
+    /**
+     * Decodes a payload.
+     *
+     * @param data the received payload
+     * @return the decoded value
+     */
+    @Nullable
+    T decode(@NotNull byte[] data);
+}
@@ -1,9 +1,11 @@
 package fr.nhsoul.natsbridge.common.config;
 
+import fr.nhsoul.natsbridge.common.util.SubjectPattern;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.List;
+import java.util.Locale;
 import java.util.Objects;
 
 
@@ -17,15 +19,28 @@ public class NatsConfig {
     private final AuthConfig auth;
     private final TlsConfig tls;
     private final ReconnectConfig reconnect;
+    private final SubscriptionConfig subscriptions;
+    private final PublishConfig publish;
 
     public NatsConfig(@NotNull List<String> servers,
                       @Nullable AuthConfig auth,
                       @Nullable TlsConfig tls,
                       @NotNull ReconnectConfig reconnect) {
+        this(servers, auth, tls, reconnect, SubscriptionConfig.defaults(), PublishConfig.defaults());
+    }
+
+    public NatsConfig(@NotNull List<String> servers,
+                      @Nullable AuthConfig auth,
+                      @Nullable TlsConfig tls,
+                      @NotNull ReconnectConfig reconnect,
+                      @NotNull SubscriptionConfig subscriptions,
+                      @NotNull PublishConfig publish) {
         this.servers = Objects.requireNonNull(servers, "servers cannot be null");
         this.auth = auth;
         this.tls = tls;
         this.reconnect = Objects.requireNonNull(reconnect, "reconnect config cannot be null");
+        this.subscriptions = Objects.requireNonNull(subscriptions, "subscriptions config cannot be null");
+        this.publish = Objects.requireNonNull(publish, "publish config cannot be null");
     }
 
     @NotNull
@@ -48,6 +63,16 @@ public class NatsConfig {
         return reconnect;
     }
 
+    @NotNull
+    public SubscriptionConfig getSubscriptions() {
+        return subscriptions;
+    }
+
+    @NotNull
+    public PublishConfig getPublish() {
+        return publish;
+    }
+
     /**
      * NATS authentication configuration.
      */
@@ -154,4 +179,630 @@ public class NatsConfig {
             return connectionTimeoutMs;
         }
     }
+
+    /**
+     * Subscription dispatching configuration.
+     */
+    public static class SubscriptionConfig {
+
+        /**
+         * Strategy used to assign a subject to one of the pooled dispatchers.
+         */
+        public enum DispatcherAssignment {
+            /**
+             * Subjects are placed on a hash ring, so a given subject always lands on
+             * the same dispatcher and resizing the pool only moves a fraction of them.
+             */
+            CONSISTENT_HASH,
+            /**
+             * Subscriptions are spread over the dispatchers in registration order.
+             */
+            ROUND_ROBIN
+        }
+
+        private final int dispatcherPoolSize;
+        private final DispatcherAssignment dispatcherAssignment;
+        private final long mainThreadBudgetMs;
+        private final List<PendingLimit> pendingLimits;
+        private final int orderedStripes;
+
+        private SubscriptionConfig(@NotNull Builder builder) {
+            if (builder.dispatcherPoolSize < 1) {
+                throw new IllegalArgumentException("dispatcherPoolSize must be at least 1");
+            }
+            if (builder.mainThreadBudgetMs < 1) {
+                throw new IllegalArgumentException("mainThreadBudgetMs must be at least 1");
+            }
+            if (builder.orderedStripes < 1) {
+                throw new IllegalArgumentException("orderedStripes must be at least 1");
+            }
+            this.dispatcherPoolSize = builder.dispatcherPoolSize;
+            this.dispatcherAssignment = Objects.requireNonNull(builder.dispatcherAssignment,
+                    "dispatcherAssignment cannot be null");
+            this.mainThreadBudgetMs = builder.mainThreadBudgetMs;
+            this.pendingLimits = List.copyOf(Objects.requireNonNull(builder.pendingLimits,
+                    "pending limits cannot be null"));
+            this.orderedStripes = builder.orderedStripes;
+        }
+
+        /**
+         * Gets the default configuration: a single shared dispatcher, a 5 ms
+         * main thread budget and one ordered delivery stripe per available core.
+         */
+        @NotNull
+        public static SubscriptionConfig defaults() {
+            return builder().build();
+        }
+
+        /**
+         * Creates a builder starting from the default configuration.
+         */
+        @NotNull
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        public int getDispatcherPoolSize() {
+            return dispatcherPoolSize;
+        }
+
+        @NotNull
+        public DispatcherAssignment getDispatcherAssignment() {
+            return dispatcherAssignment;
+        }
+
+        /**
+         * Gets the time the server thread may spend per tick running messages
+         * delivered to it, on platforms having one (Spigot). Messages left over
+         * run on the next tick.
+         */
+        public long getMainThreadBudgetMs() {
+            return mainThreadBudgetMs;
+        }
+
+        /**
+         * Gets the number of serial executors shared by the subscriptions ordered
+         * by key: messages with different keys are consumed in parallel on up to
+         * this many threads.
+         */
+        public int getOrderedStripes() {
+            return orderedStripes;
+        }
+
+        /**
+         * Gets the pending limits, in configuration order. A subscription matching
+         * none of them is unbounded (only limited by the jnats dispatcher queue).
+         */
+        @NotNull
+        public List<PendingLimit> getPendingLimits() {
+            return pendingLimits;
+        }
+
+        /**
+         * Gets the first pending limit applying to a subscription subject.
+         *
+         * @return the limit, or null if the subscription is unbounded
+         */
+        @Nullable
+        public PendingLimit findPendingLimit(@NotNull String subject) {
+            for (PendingLimit limit : pendingLimits) {
+                if (limit.matches(subject)) {
+                    return limit;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Builder of {@link SubscriptionConfig}, holding the default values until set.
+         */
+        public static final class Builder {
+            private int dispatcherPoolSize = 1;
+            private DispatcherAssignment dispatcherAssignment = DispatcherAssignment.CONSISTENT_HASH;
+            private long mainThreadBudgetMs = 5;
+            private List<PendingLimit> pendingLimits = List.of();
+            private int orderedStripes = Runtime.getRuntime().availableProcessors();
+
+            private Builder() {
+            }
+
+            @NotNull
+            public Builder dispatcherPoolSize(int dispatcherPoolSize) {
+                this.dispatcherPoolSize = dispatcherPoolSize;
+                return this;
+            }
+
+            @NotNull
+            public Builder dispatcherAssignment(@NotNull DispatcherAssignment dispatcherAssignment) {
+                this.dispatcherAssignment = dispatcherAssignment;
+                return this;
+            }
+
+            @NotNull
+            public Builder mainThreadBudgetMs(long mainThreadBudgetMs) {
+                this.mainThreadBudgetMs = mainThreadBudgetMs;
+                return this;
+            }
+
+            @NotNull
+            public Builder pendingLimits(@NotNull List<PendingLimit> pendingLimits) {
+                this.pendingLimits = pendingLimits;
+                return this;
+            }
+
+            @NotNull
+            public Builder orderedStripes(int orderedStripes) {
+                this.orderedStripes = orderedStripes;
+                return this;
+            }
+
+            @NotNull
+            public SubscriptionConfig build() {
+                return new SubscriptionConfig(this);
+            }
+        }
+
+        /**
+         * Bounds on the messages waiting for the consumer of the subscriptions
+         * whose subject matches a pattern, and what to do once they are reached.
+         */
+        public static class PendingLimit {
+
+            /**
+             * What happens to a message received while the pending limit is reached.
+             */
+            public enum OverflowPolicy {
+                /**
+                 * The oldest pending messages are discarded to make room for it.
+                 */
+                DROP_OLDEST,
+                /**
+                 * The message is discarded.
+                 */
+                DROP_NEWEST,
+                /**
+                 * The dispatcher thread waits until the consumer has made room for it.
+                 */
+                BLOCK,
+                /**
+                 * The message replaces the pending message of the same subject, if any,
+                 * otherwise the oldest pending message is discarded.
+                 */
+                COALESCE
+            }
+
+            private final String subject;
+            private final int maxMessages;
+            private final long maxBytes;
+            private final OverflowPolicy overflow;
+
+            /**
+             * @param subject     the subject pattern, with the NATS {@code *} and {@code >} wildcards
+             * @param maxMessages the maximum number of pending messages
+             * @param maxBytes    the maximum number of pending payload bytes, 0 for no byte limit
+             * @param overflow    the policy applied once a limit is reached
+             */
+            public PendingLimit(@NotNull String subject, int maxMessages, long maxBytes,
+                                @NotNull OverflowPolicy overflow) {
+                if (maxMessages < 1 || maxBytes < 0) {
+                    throw new IllegalArgumentException("Invalid pending limits for subject: " + subject);
+                }
+                this.subject = Objects.requireNonNull(subject, "subject cannot be null");
+                this.maxMessages = maxMessages;
+                this.maxBytes = maxBytes;
+                this.overflow = Objects.requireNonNull(overflow, "overflow cannot be null");
+            }
+
+            @NotNull
+            public String getSubject() {
+                return subject;
+            }
+
+            public int getMaxMessages() {
+                return maxMessages;
+            }
+
+            public long getMaxBytes() {
+                return maxBytes;
+            }
+
+            @NotNull
+            public OverflowPolicy getOverflow() {
+                return overflow;
+            }
+
+            /**
+             * Checks whether this limit applies to a subscription subject. Wildcards
+             * of the subscription subject are compared literally, so {@code game.*}
+             * matches the patterns {@code game.*} and {@code game.>} but not {@code game.chat}.
+             */
+            public boolean matches(@NotNull String subscriptionSubject) {
+                return SubjectPattern.matches(subject, subscriptionSubject);
+            }
+
+            @Override
+            public String toString() {
+                return maxMessages + " msgs" + (maxBytes > 0 ? "/" + maxBytes + " bytes" : "")
+                        + " " + overflow.name().toLowerCase(Locale.ROOT);
+            }
+        }
+    }
+
+    /**
+     * Message publication configuration.
+     */
+    public static class PublishConfig {
+        private final List<BatchingRule> batching;
+        private final AsyncConfig async;
+        private final List<PublishQuota> quotas;
+        private final List<Lane> lanes;
+
+        private PublishConfig(@NotNull Builder builder) {
+            this.batching = List.copyOf(Objects.requireNonNull(builder.batching, "batching rules cannot be null"));
+            this.async = Objects.requireNonNull(builder.async, "async config cannot be null");
+            this.quotas = List.copyOf(Objects.requireNonNull(builder.quotas, "quotas cannot be null"));
+            this.lanes = List.copyOf(Objects.requireNonNull(builder.lanes, "lanes cannot be null"));
+
+            for (int i = 0; i < this.lanes.size(); i++) {
+                for (int j = 0; j < i; j++) {
+                    if (this.lanes.get(i).getName().equals(this.lanes.get(j).getName())) {
+                        throw new IllegalArgumentException("Duplicate publish lane: " + this.lanes.get(i).getName());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Gets the default configuration: every message is published directly on
+         * the main connection, asynchronous publications run on virtual threads,
+         * and plugins are not rate limited.
+         */
+        @NotNull
+        public static PublishConfig defaults() {
+            return builder().build();
+        }
+
+        /**
+         * Creates a builder starting from the default configuration.
+         */
+        @NotNull
+        public static Builder builder() {
+            return new Builder();
+        }
+
+        /**
+         * Gets the batching rules. A subject matching none of them is published directly.
+         */
+        @NotNull
+        public List<BatchingRule> getBatching() {
+            return batching;
+        }
+
+        @NotNull
+        public AsyncConfig getAsync() {
+            return async;
+        }
+
+        /**
+         * Gets the publish quotas, in configuration order. A plugin matching none of
+         * them is not rate limited.
+         */
+        @NotNull
+        public List<PublishQuota> getQuotas() {
+            return quotas;
+        }
+
+        /**
+         * Gets the publish lanes, in configuration order. Each lane publishes on its
+         * own connection; subjects matching no lane are published on the main connection.
+         */
+        @NotNull
+        public List<Lane> getLanes() {
+            return lanes;
+        }
+
+        /**
+         * Gets the first publish quota applying to a plugin.
+         *
+         * @param plugin the plugin name
+         * @return the quota, or null if the plugin is not rate limited
+         */
+        @Nullable
+        public PublishQuota findQuota(@NotNull String plugin) {
+            for (PublishQuota quota : quotas) {
+                if (quota.matches(plugin)) {
+                    return quota;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Builder of {@link PublishConfig}, holding the default values until set.
+         */
+        public static final class Builder {
+            private List<BatchingRule> batching = List.of();
+            private AsyncConfig async = AsyncConfig.defaults();
+            private List<PublishQuota> quotas = List.of();
+            private List<Lane> lanes = List.of();
+
+            private Builder() {
+            }
+
+            @NotNull
+            public Builder batching(@NotNull List<BatchingRule> batching) {
+                this.batching = batching;
+                return this;
+            }
+
+            @NotNull
+            public Builder async(@NotNull AsyncConfig async) {
+                this.async = async;
+                return this;
+            }
+
+            @NotNull
+            public Builder quotas(@NotNull List<PublishQuota> quotas) {
+                this.quotas = quotas;
+                return this;
+            }
+
+            @NotNull
+            public Builder lanes(@NotNull List<Lane> lanes) {
+                this.lanes = lanes;
+                return this;
+            }
+
+            @NotNull
+            public PublishConfig build() {
+                return new PublishConfig(this);
+            }
+        }
+
+        /**
+         * Configuration of the executor running asynchronous publications.
+         */
+        public static class AsyncConfig {
+
+            /**
+             * Kind of executor running asynchronous publications.
+             */
+            public enum ExecutorType {
+                /**
+                 * One virtual thread per publication.
+                 */
+                VIRTUAL,
+                /**
+                 * A fixed pool of platform threads with a bounded queue.
+                 */
+                PLATFORM
+            }
+
+            private final ExecutorType executor;
+            private final int threads;
+            private final int queueSize;
+            private final long ackTimeoutMs;
+
+            public AsyncConfig(@NotNull ExecutorType executor, int threads, int queueSize, long ackTimeoutMs) {
+                if (threads < 1 || queueSize < 1 || ackTimeoutMs < 1) {
+                    throw new IllegalArgumentException("Async publish threads, queue size and ack timeout must be positive");
+                }
+                this.executor = Objects.requireNonNull(executor, "executor cannot be null");
+                this.threads = threads;
+                this.queueSize = queueSize;
+                this.ackTimeoutMs = ackTimeoutMs;
+            }
+
+            @NotNull
+            public static AsyncConfig defaults() {
+                return new AsyncConfig(ExecutorType.VIRTUAL, 2, 10_000, 5000);
+            }
+
+            @NotNull
+            public ExecutorType getExecutor() {
+                return executor;
+            }
+
+            public int getThreads() {
+                return threads;
+            }
+
+            public int getQueueSize() {
+                return queueSize;
+            }
+
+            /**
+             * Gets the maximum time to wait for the server to acknowledge a flush.
+             */
+            public long getAckTimeoutMs() {
+                return ackTimeoutMs;
+            }
+        }
+
+        /**
+         * Batching policy applied to the subjects starting with a given prefix.
+         * A batch is flushed as soon as one of its thresholds is reached.
+         */
+        public static class BatchingRule {
+            private final String prefix;
+            private final int maxMessages;
+            private final int maxBytes;
+            private final long lingerMs;
+
+            public BatchingRule(@NotNull String prefix, int maxMessages, int maxBytes, long lingerMs) {
+                if (maxMessages < 1 || maxBytes < 1 || lingerMs < 1) {
+                    throw new IllegalArgumentException("Batching thresholds must be positive for prefix: " + prefix);
+                }
+                this.prefix = Objects.requireNonNull(prefix, "prefix cannot be null");
+                this.maxMessages = maxMessages;
+                this.maxBytes = maxBytes;
+                this.lingerMs = lingerMs;
+            }
+
+            @NotNull
+            public String getPrefix() {
+                return prefix;
+            }
+
+            public int getMaxMessages() {
+                return maxMessages;
+            }
+
+            public int getMaxBytes() {
+                return maxBytes;
+            }
+
+            public long getLingerMs() {
+                return lingerMs;
+            }
+
+            public boolean matches(@NotNull String subject) {
+                return subject.startsWith(prefix);
+            }
+        }
+
+        /**
+         * Token bucket limiting the messages and bytes a plugin publishes per second,
+         * with bursts of up to one second of traffic.
+         */
+        public static class PublishQuota {
+
+            /**
+             * What happens to a publication exceeding the quota.
+             */
+            public enum OverLimitPolicy {
+                /**
+                 * The publication fails with a {@code PublishException}.
+                 */
+                REJECT,
+                /**
+                 * The publication is postponed until the quota allows it, keeping the
+                 * publication order. It is rejected if it would wait longer than the
+                 * maximum delay.
+                 */
+                DELAY,
+                /**
+                 * The message is silently discarded.
+                 */
+                DROP
+            }
+
+            private final String plugin;
+            private final long messagesPerSecond;
+            private final long bytesPerSecond;
+            private final OverLimitPolicy policy;
+            private final long maxDelayMs;
+
+            /**
+             * @param plugin            the plugin name, or {@code *} for every plugin
+             * @param messagesPerSecond the maximum number of messages per second, 0 for no message limit
+             * @param bytesPerSecond    the maximum number of payload bytes per second, 0 for no byte limit
+             * @param policy            the policy applied to the publications over the quota
+             * @param maxDelayMs        the maximum time a delayed publication waits before being rejected
+             */
+            public PublishQuota(@NotNull String plugin, long messagesPerSecond, long bytesPerSecond,
+                                @NotNull OverLimitPolicy policy, long maxDelayMs) {
+                if (messagesPerSecond < 0 || bytesPerSecond < 0 || maxDelayMs < 0) {
+                    throw new IllegalArgumentException("Invalid publish quota for plugin: " + plugin);
+                }
+                this.plugin = Objects.requireNonNull(plugin, "plugin cannot be null");
+                this.messagesPerSecond = messagesPerSecond;
+                this.bytesPerSecond = bytesPerSecond;
+                this.policy = Objects.requireNonNull(policy, "policy cannot be null");
+                this.maxDelayMs = maxDelayMs;
+            }
+
+            @NotNull
+            public String getPlugin() {
+                return plugin;
+            }
+
+            public long getMessagesPerSecond() {
+                return messagesPerSecond;
+            }
+
+            public long getBytesPerSecond() {
+                return bytesPerSecond;
+            }
+
+            @NotNull
+            public OverLimitPolicy getPolicy() {
+                return policy;
+            }
+
+            public long getMaxDelayMs() {
+                return maxDelayMs;
+            }
+
+            public boolean matches(@NotNull String pluginName) {
+                return plugin.equals("*") || plugin.equalsIgnoreCase(pluginName);
+            }
+
+            @Override
+            public String toString() {
+                return (messagesPerSecond > 0 ? messagesPerSecond + " msgs/s" : "unlimited msgs/s")
+                        + (bytesPerSecond > 0 ? ", " + bytesPerSecond + " bytes/s" : "")
+                        + " " + policy.name().toLowerCase(Locale.ROOT);
+            }
+        }
+
+        /**
+         * Named connection dedicated to publishing the messages of some subjects, so
+         * that a burst on them (e.g. analytics) does not queue in front of the
+         * messages published on other connections.
+         */
+        public static class Lane {
+
+            /**
+             * Name of the main connection, serving the subjects matching no lane.
+             */
+            public static final String DEFAULT = "default";
+
+            private final String name;
+            private final List<String> subjects;
+
+            /**
+             * @param name     the lane name, used to name its connection
+             * @param subjects the subject patterns published on the lane, with the NATS
+             *                 {@code *} and {@code >} wildcards
+             */
+            public Lane(@NotNull String name, @NotNull List<String> subjects) {
+                if (name.isBlank() || name.equals(DEFAULT)) {
+                    throw new IllegalArgumentException("Invalid publish lane name: " + name);
+                }
+                if (subjects.isEmpty()) {
+                    throw new IllegalArgumentException("Publish lane without subjects: " + name);
+                }
+                this.name = name;
+                this.subjects = List.copyOf(subjects);
+            }
+
+            @NotNull
+            public String getName() {
+                return name;
+            }
+
+            @NotNull
+            public List<String> getSubjects() {
+                return subjects;
+            }
+
+            /**
+             * Checks whether a concrete subject is published on this lane.
+             */
+            public boolean matches(@NotNull String subject) {
+                for (int i = 0, n = subjects.size(); i < n; i++) {
+                    if (SubjectPattern.matches(subjects.get(i), subject)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public String toString() {
+                return name + " " + subjects;
+            }
+        }
+    }
 }
@@ -70,4 +70,17 @@ public class NatsException extends RuntimeException {
             super(message, cause);
         }
     }
+
+    /**
+     * Exception thrown when a request gets no reply.
+     */
+    public static class RequestException extends NatsException {
+        public RequestException(String message) {
+            super(message);
+        }
+
+        public RequestException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
 }
\ No newline at end of file
@@ -20,17 +20,56 @@ public interface NatsLogger {
 
     void debug(@NotNull String message, Object... args);
 
+    /**
+     * Checks if info messages are logged.
+     */
+    default boolean isInfoEnabled() {
+        return true;
+    }
+
+    /**
+     * Checks if warning messages are logged.
+     */
+    default boolean isWarnEnabled() {
+        return true;
+    }
+
+    /**
+     * Checks if error messages are logged.
+     */
+    default boolean isErrorEnabled() {
+        return true;
+    }
+
+    /**
+     * Checks if debug messages are logged, so that expensive debug arguments
+     * can be skipped when they would be discarded anyway.
+     */
+    default boolean isDebugEnabled() {
+        return true;
+    }
+
     /**
      * Formats a message with the prefix and replaces {} with the provided arguments
-     * (SLF4J style).
+     * (SLF4J style), in a single pass over the message.
+     * Implementations should only call it once the level is known to be enabled.
      */
     default String format(@NotNull String message, Object... args) {
-        String formatted = message;
-        if (args != null && args.length > 0) {
-            for (Object arg : args) {
-                formatted = formatted.replaceFirst("\\{}", String.valueOf(arg));
-            }
+        if (args == null || args.length == 0) {
+            return PREFIX + message;
+        }
+
+        StringBuilder builder = new StringBuilder(PREFIX.length() + message.length() + 16 * args.length);
+        builder.append(PREFIX);
+
+        int start = 0;
+        int argIndex = 0;
+        int placeholder;
+        while (argIndex < args.length && (placeholder = message.indexOf("{}", start)) >= 0) {
+            builder.append(message, start, placeholder).append(args[argIndex++]);
+            start = placeholder + 2;
         }
-        return PREFIX + formatted;
+        builder.append(message, start, message.length());
+        return builder.toString();
     }
 }
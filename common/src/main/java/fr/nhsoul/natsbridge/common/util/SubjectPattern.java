@@ -0,0 +1,79 @@
+package fr.nhsoul.natsbridge.common.util;
+
+import org.jetbrains.annotations.NotNull;
+
+
+/**
+ * Subject pattern matching with the NATS wildcard semantics: {@code *} matches a
+ * single token and {@code >}, as the last token of a pattern, one or more
+ * trailing tokens.
+ * <p>
+ * Subjects are compared token by token, without splitting them, since matching
+ * runs on the publication and subscription paths.
+ */
+public final class SubjectPattern {
+
+    private SubjectPattern() {
+    }
+
+    /**
+     * Checks whether a pattern matches a subject. The tokens of the subject are
+     * compared literally, so the subject {@code game.*} is matched by the patterns
+     * {@code game.*} and {@code game.>} but not by {@code game.chat}.
+     *
+     * @param pattern the pattern, with wildcards
+     * @param subject the subject
+     */
+    public static boolean matches(@NotNull String pattern, @NotNull String subject) {
+        return compare(pattern, subject, false);
+    }
+
+    /**
+     * Checks whether every subject matched by a pattern is also matched by another.
+     *
+     * @param pattern the covering pattern
+     * @param other   the covered pattern
+     */
+    public static boolean covers(@NotNull String pattern, @NotNull String other) {
+        return compare(pattern, other, true);
+    }
+
+    /**
+     * @param wildcards whether a {@code >} token of the subject stands for several
+     *                  tokens, which a {@code *} token of the pattern cannot match
+     */
+    private static boolean compare(String pattern, String subject, boolean wildcards) {
+        int p = 0;
+        int s = 0;
+        while (true) {
+            int patternEnd = tokenEnd(pattern, p);
+            int subjectEnd = tokenEnd(subject, s);
+
+            int length = patternEnd - p;
+            if (length == 1 && pattern.charAt(p) == '>' && patternEnd == pattern.length()) {
+                // Matches the remaining tokens
+                return true;
+            }
+            if (length == 1 && pattern.charAt(p) == '*') {
+                if (wildcards && subjectEnd - s == 1 && subject.charAt(s) == '>') {
+                    return false;
+                }
+            } else if (length != subjectEnd - s || !pattern.regionMatches(p, subject, s, length)) {
+                return false;
+            }
+
+            boolean patternDone = patternEnd == pattern.length();
+            boolean subjectDone = subjectEnd == subject.length();
+            if (patternDone || subjectDone) {
+                return patternDone && subjectDone;
+            }
+            p = patternEnd + 1;
+            s = subjectEnd + 1;
+        }
+    }
+
+    private static int tokenEnd(String value, int start) {
+        int end = value.indexOf('.', start);
+        return end < 0 ? value.length() : end;
+    }
+}
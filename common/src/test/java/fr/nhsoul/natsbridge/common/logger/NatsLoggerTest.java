@@ -0,0 +1,56 @@
+package fr.nhsoul.natsbridge.common.logger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+class NatsLoggerTest {
+
+    private final NatsLogger logger = new NatsLogger() {
+        @Override
+        public void info(String message, Object... args) {
+        }
+
+        @Override
+        public void warn(String message, Object... args) {
+        }
+
+        @Override
+        public void error(String message, Throwable throwable, Object... args) {
+        }
+
+        @Override
+        public void debug(String message, Object... args) {
+        }
+    };
+
+    @Test
+    void prefixesMessagesWithoutArguments() {
+        assertEquals("[NatsBridge] Connected {}", logger.format("Connected {}"));
+        assertEquals("[NatsBridge] Connected", logger.format("Connected", (Object[]) null));
+    }
+
+    @Test
+    void replacesPlaceholdersInOrder() {
+        assertEquals("[NatsBridge] Lane bulk connected for [analytics.>]",
+                logger.format("Lane {} connected for {}", "bulk", "[analytics.>]"));
+        assertEquals("[NatsBridge] 3 messages (12 bytes)", logger.format("{} messages ({} bytes)", 3, 12L));
+        assertEquals("[NatsBridge] value=null", logger.format("value={}", (Object) null));
+    }
+
+    @Test
+    void keepsPlaceholdersWithoutArguments() {
+        assertEquals("[NatsBridge] a and {}", logger.format("{} and {}", "a"));
+    }
+
+    @Test
+    void ignoresExtraArguments() {
+        assertEquals("[NatsBridge] only a", logger.format("only {}", "a", "b"));
+    }
+
+    @Test
+    void doesNotSubstituteInsideArguments() {
+        assertEquals("[NatsBridge] subject {} then x", logger.format("subject {} then {}", "{}", "x"));
+    }
+}
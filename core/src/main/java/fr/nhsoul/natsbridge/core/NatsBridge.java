@@ -5,14 +5,25 @@ import fr.nhsoul.natsbridge.common.config.NatsConfig;
 import fr.nhsoul.natsbridge.common.exception.NatsException;
 import fr.nhsoul.natsbridge.common.logger.NatsLogger;
 import fr.nhsoul.natsbridge.core.api.NatsAPIImpl;
+import fr.nhsoul.natsbridge.core.api.ScopedNatsAPI;
 import fr.nhsoul.natsbridge.core.config.ConfigLoader;
 import fr.nhsoul.natsbridge.core.connection.NatsConnectionManager;
+import fr.nhsoul.natsbridge.core.publish.AsyncPublisher;
+import fr.nhsoul.natsbridge.core.publish.BatchingPublisher;
+import fr.nhsoul.natsbridge.core.publish.PublishQuotaLimiter;
+import fr.nhsoul.natsbridge.core.request.RequestMultiplexer;
 import fr.nhsoul.natsbridge.core.subscription.DefaultSubscriptionManager;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 
@@ -22,21 +33,43 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public class NatsBridge {
 
-    private static NatsLogger logger = new DefaultSlf4jLogger(NatsBridge.class);
+    // Handed to every component once; the platform logger is plugged in at initialization
+    private static final NatsLoggerFacade logger = new NatsLoggerFacade(new DefaultSlf4jLogger(NatsBridge.class));
     private static volatile NatsBridge instance;
 
     private final NatsConfig config;
     private final NatsConnectionManager connectionManager;
     private final DefaultSubscriptionManager subscriptionManager;
+    private final BatchingPublisher batchingPublisher;
+    private final AsyncPublisher asyncPublisher;
+    private final RequestMultiplexer requestMultiplexer;
+    // Deadlines of the publications delayed by the publish quotas, null without quotas
+    private final ScheduledExecutorService quotaScheduler;
     private final NatsAPI api;
+    // APIs handed to the plugins, by owner name
+    private final Map<String, ScopedNatsAPI> scopedAPIs = new ConcurrentHashMap<>();
     private final AtomicBoolean initialized = new AtomicBoolean(false);
     private final AtomicBoolean shutdown = new AtomicBoolean(false);
 
     private NatsBridge(@NotNull NatsConfig config) {
         this.config = config;
-        this.connectionManager = new NatsConnectionManager(config);
-        this.subscriptionManager = new DefaultSubscriptionManager(connectionManager);
-        this.api = new NatsAPIImpl(connectionManager, subscriptionManager);
+        this.connectionManager = new NatsConnectionManager(config, logger);
+        this.subscriptionManager = new DefaultSubscriptionManager(connectionManager, config.getSubscriptions(), logger);
+        this.batchingPublisher = new BatchingPublisher(connectionManager, config.getPublish().getBatching(), logger);
+        this.asyncPublisher = new AsyncPublisher(connectionManager, batchingPublisher, config.getPublish().getAsync(),
+                logger);
+        this.requestMultiplexer = new RequestMultiplexer(logger);
+        if (config.getPublish().getQuotas().isEmpty()) {
+            this.quotaScheduler = null;
+        } else {
+            this.quotaScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "NatsBridge-quota-scheduler");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        this.api = new NatsAPIImpl(connectionManager, subscriptionManager, batchingPublisher, asyncPublisher,
+                requestMultiplexer, logger);
 
         logger.info("NatsBridge initialized with configuration: servers={}, auth={}, tls={}",
                 config.getServers(),
@@ -59,11 +92,11 @@ public class NatsBridge {
         }
 
         if (natsLogger != null) {
-            logger = natsLogger;
+            logger.setDelegate(natsLogger);
         }
 
         NatsConfig config = ConfigLoader.loadFromFile(configFile);
-        return initialize(config, logger);
+        return initialize(config, null);
     }
 
     /**
@@ -81,7 +114,7 @@ public class NatsBridge {
         }
 
         if (natsLogger != null) {
-            logger = natsLogger;
+            logger.setDelegate(natsLogger);
         }
 
         instance = new NatsBridge(config);
@@ -177,7 +210,18 @@ public class NatsBridge {
         logger.info("Shutting down NatsBridge...");
 
         try {
+            for (ScopedNatsAPI scopedAPI : scopedAPIs.values()) {
+                scopedAPI.release();
+            }
+            scopedAPIs.clear();
             subscriptionManager.shutdown();
+            requestMultiplexer.shutdown();
+            if (quotaScheduler != null) {
+                // Delayed publications still run at their deadline, and fail once the publisher is shut down
+                quotaScheduler.shutdown();
+            }
+            asyncPublisher.shutdown();
+            batchingPublisher.shutdown();
             connectionManager.disconnect();
             logger.info("NatsBridge shut down successfully");
         } catch (Exception e) {
@@ -197,10 +241,49 @@ public class NatsBridge {
         return api;
     }
 
+    /**
+     * Gets the NATS API of an owner (usually a plugin). The subscriptions made through
+     * it are cancelled when the owner is released, its traffic is accounted, and its
+     * publications are limited by the first configured publish quota matching its name.
+     *
+     * @param owner the owner name
+     * @return the NATS API of the owner, created on first use
+     */
+    @NotNull
+    public ScopedNatsAPI getScopedAPI(@NotNull String owner) {
+        return scopedAPIs.computeIfAbsent(owner, o -> {
+            NatsConfig.PublishConfig.PublishQuota quota = config.getPublish().findQuota(o);
+            PublishQuotaLimiter quotaLimiter = quota != null
+                    ? new PublishQuotaLimiter(o, quota, quotaScheduler, asyncPublisher.getExecutor())
+                    : null;
+            return new ScopedNatsAPI(o, api, quotaLimiter, logger);
+        });
+    }
+
+    /**
+     * Cancels the subscriptions of an owner and forgets its NATS API. The owner gets a
+     * fresh API on its next call to {@link #getScopedAPI(String)} (e.g. after a reload).
+     *
+     * @param owner the owner name
+     * @return the number of cancelled subscriptions
+     */
+    public int releaseScope(@NotNull String owner) {
+        ScopedNatsAPI scopedAPI = scopedAPIs.remove(owner);
+        return scopedAPI != null ? scopedAPI.release() : 0;
+    }
+
+    /**
+     * Gets the NATS APIs handed to the owners not released yet.
+     */
+    @NotNull
+    public Collection<ScopedNatsAPI> getScopedAPIs() {
+        return Collections.unmodifiableCollection(scopedAPIs.values());
+    }
+
     /**
      * Gets the SubscriptionManager for advanced subscription management.
-     * This method is mainly used by plugin scanners to load subscriptions
-     * generated by the annotation processor.
+     * Annotated handlers do not need it: the binders generated by the annotation
+     * processor are registered with {@link NatsAPI#registerHandlers(Object)}.
      *
      * @return the SubscriptionManager
      */
@@ -229,6 +312,17 @@ public class NatsBridge {
         return logger;
     }
 
+    /**
+     * Gets the logging facade shared by all the library components.
+     * Its delegate can be replaced at runtime to redirect the library logs.
+     *
+     * @return the logging facade
+     */
+    @NotNull
+    public static NatsLoggerFacade getLoggerFacade() {
+        return logger;
+    }
+
     /**
      * Checks if the library is initialized and started.
      *
@@ -257,6 +351,26 @@ public class NatsBridge {
         return connectionManager.getConnectionStatus();
     }
 
+    /**
+     * Gets the status of the publish lane connections.
+     *
+     * @return the status of each lane, by name, in configuration order
+     */
+    @NotNull
+    public Map<String, String> getLaneStatuses() {
+        return connectionManager.getLaneStatuses();
+    }
+
+    /**
+     * Gets the publisher batching the messages of the subjects covered by a batching rule.
+     *
+     * @return the batching publisher
+     */
+    @NotNull
+    public BatchingPublisher getBatchingPublisher() {
+        return batchingPublisher;
+    }
+
     /**
      * Resets the instance (useful for tests).
      */
@@ -265,5 +379,7 @@ public class NatsBridge {
             instance.shutdown();
             instance = null;
         }
+        // Do not keep the platform logger (and its plugin) reachable
+        logger.setDelegate(new DefaultSlf4jLogger(NatsBridge.class));
     }
 }
\ No newline at end of file
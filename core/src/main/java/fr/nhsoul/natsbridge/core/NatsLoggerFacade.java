@@ -0,0 +1,124 @@
+package fr.nhsoul.natsbridge.core;
+
+import fr.nhsoul.natsbridge.common.logger.NatsLogger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Logger handed once to every NatsBridge component, delegating to the platform
+ * logger. The delegate can be swapped at runtime without touching the components,
+ * and the messages actually logged are counted per level; messages discarded by
+ * the level of the delegate are not.
+ */
+public class NatsLoggerFacade implements NatsLogger {
+
+    private volatile NatsLogger delegate;
+
+    private final LongAdder infoCount = new LongAdder();
+    private final LongAdder warnCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+    private final LongAdder debugCount = new LongAdder();
+
+    public NatsLoggerFacade(@NotNull NatsLogger delegate) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate cannot be null");
+    }
+
+    /**
+     * Replaces the logger messages are delegated to.
+     *
+     * @param delegate the new logger
+     */
+    public void setDelegate(@NotNull NatsLogger delegate) {
+        this.delegate = Objects.requireNonNull(delegate, "delegate cannot be null");
+    }
+
+    @NotNull
+    public NatsLogger getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public void info(@NotNull String message, Object... args) {
+        NatsLogger target = delegate;
+        if (target.isInfoEnabled()) {
+            infoCount.increment();
+            target.info(message, args);
+        }
+    }
+
+    @Override
+    public void warn(@NotNull String message, Object... args) {
+        NatsLogger target = delegate;
+        if (target.isWarnEnabled()) {
+            warnCount.increment();
+            target.warn(message, args);
+        }
+    }
+
+    @Override
+    public void error(@NotNull String message, @Nullable Throwable throwable, Object... args) {
+        NatsLogger target = delegate;
+        if (target.isErrorEnabled()) {
+            errorCount.increment();
+            target.error(message, throwable, args);
+        }
+    }
+
+    @Override
+    public void debug(@NotNull String message, Object... args) {
+        NatsLogger target = delegate;
+        if (target.isDebugEnabled()) {
+            debugCount.increment();
+            target.debug(message, args);
+        }
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return delegate.isInfoEnabled();
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return delegate.isWarnEnabled();
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return delegate.isErrorEnabled();
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return delegate.isDebugEnabled();
+    }
+
+    public long getInfoCount() {
+        return infoCount.sum();
+    }
+
+    public long getWarnCount() {
+        return warnCount.sum();
+    }
+
+    public long getErrorCount() {
+        return errorCount.sum();
+    }
+
+    public long getDebugCount() {
+        return debugCount.sum();
+    }
+
+    /**
+     * Gets the number of messages logged per level, for diagnostics.
+     */
+    @NotNull
+    public String getCountSummary() {
+        return "info=" + getInfoCount() + ", warn=" + getWarnCount() + ", error=" + getErrorCount()
+                + ", debug=" + getDebugCount();
+    }
+}
@@ -0,0 +1,60 @@
+package fr.nhsoul.natsbridge.core.api;
+
+import fr.nhsoul.natsbridge.common.annotation.NatsBinder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+
+/**
+ * Finds the binders generated for annotated handler classes.
+ * <p>
+ * Binders are looked up once per handler class through the {@code META-INF/services}
+ * index of the class loader that loaded it (the plugin class loader), then cached
+ * alongside the class so a plugin reload does not keep the old classes alive.
+ */
+final class HandlerBinders {
+
+    private static final ClassValue<NatsBinder> BINDERS = new ClassValue<>() {
+        @Override
+        protected NatsBinder computeValue(Class<?> type) {
+            return load(type);
+        }
+    };
+
+    private HandlerBinders() {
+    }
+
+    /**
+     * Gets the binder generated for a handler class or, failing that, for its
+     * closest superclass having one.
+     *
+     * @return the binder, or null if no annotated method was processed for this class
+     */
+    @Nullable
+    static NatsBinder find(@NotNull Class<?> type) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            NatsBinder binder = BINDERS.get(current);
+            if (binder != null) {
+                return binder;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static NatsBinder load(Class<?> type) {
+        try {
+            for (NatsBinder binder : ServiceLoader.load(NatsBinder.class, type.getClassLoader())) {
+                if (binder.getHandlerType() == type) {
+                    return binder;
+                }
+            }
+        } catch (ServiceConfigurationError e) {
+            throw new IllegalStateException("Failed to load NATS handler binders for " + type.getName(), e);
+        }
+        return null;
+    }
+}
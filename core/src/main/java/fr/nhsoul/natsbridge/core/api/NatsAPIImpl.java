@@ -1,20 +1,35 @@
 package fr.nhsoul.natsbridge.core.api;
 
+import fr.nhsoul.natsbridge.common.annotation.NatsBinder;
+import fr.nhsoul.natsbridge.common.api.DeliveryMode;
+import fr.nhsoul.natsbridge.common.api.DeliveryRouter;
 import fr.nhsoul.natsbridge.common.api.NatsAPI;
+import fr.nhsoul.natsbridge.common.api.NatsRequest;
+import fr.nhsoul.natsbridge.common.api.NatsSubscription;
+import fr.nhsoul.natsbridge.common.api.OrderingKey;
+import fr.nhsoul.natsbridge.common.api.StringDecoding;
 import fr.nhsoul.natsbridge.common.config.NatsConfig;
 import fr.nhsoul.natsbridge.common.exception.NatsException;
 import fr.nhsoul.natsbridge.common.logger.NatsLogger;
-import fr.nhsoul.natsbridge.core.DefaultSlf4jLogger;
-import fr.nhsoul.natsbridge.core.NatsBridge;
+import fr.nhsoul.natsbridge.core.buffer.Utf8DecodeCache;
 import fr.nhsoul.natsbridge.core.connection.NatsConnectionManager;
+import fr.nhsoul.natsbridge.core.publish.AsyncPublisher;
+import fr.nhsoul.natsbridge.core.publish.BatchingPublisher;
+import fr.nhsoul.natsbridge.core.request.RequestMultiplexer;
 import fr.nhsoul.natsbridge.core.subscription.DefaultSubscriptionManager;
 import io.nats.client.Connection;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 
 /**
@@ -23,34 +38,49 @@ import java.util.function.Consumer;
  */
 public class NatsAPIImpl implements NatsAPI {
 
-    private NatsLogger getLogger() {
-        NatsBridge bridge = NatsBridge.getInstance();
-        return bridge != null ? bridge.getLogger() : new DefaultSlf4jLogger(NatsAPIImpl.class);
-    }
-
     private final NatsConnectionManager connectionManager;
     private final DefaultSubscriptionManager subscriptionManager;
+    private final BatchingPublisher batchingPublisher;
+    private final AsyncPublisher asyncPublisher;
+    private final RequestMultiplexer requestMultiplexer;
+    private final NatsLogger logger;
 
     public NatsAPIImpl(@NotNull NatsConnectionManager connectionManager,
-            DefaultSubscriptionManager subscriptionManager) {
+            DefaultSubscriptionManager subscriptionManager,
+            @NotNull BatchingPublisher batchingPublisher,
+            @NotNull AsyncPublisher asyncPublisher,
+            @NotNull RequestMultiplexer requestMultiplexer,
+            @NotNull NatsLogger logger) {
         this.connectionManager = connectionManager;
         this.subscriptionManager = subscriptionManager;
+        this.batchingPublisher = batchingPublisher;
+        this.asyncPublisher = asyncPublisher;
+        this.requestMultiplexer = requestMultiplexer;
+        this.logger = logger;
     }
 
     @Override
     public void publishRaw(@NotNull String subject, @Nullable byte[] data) {
         validateSubject(subject);
 
-        Connection connection = getConnectionOrThrow();
+        // The connection of the publish lane of the subject
+        Connection connection = checkConnected(connectionManager.getConnection(subject));
+
+        // Subjects covered by a batching rule are flushed by the batching publisher
+        if (batchingPublisher.offer(subject, data)) {
+            return;
+        }
 
         try {
             connection.publish(subject, data);
 
-            getLogger().debug("Published raw message to subject '{}' ({} bytes)", subject,
-                    data != null ? data.length : 0);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Published raw message to subject '{}' ({} bytes)", subject,
+                        data != null ? data.length : 0);
+            }
 
         } catch (Exception e) {
-            getLogger().error("Failed to publish raw message to subject '{}'", e, subject);
+            logger.error("Failed to publish raw message to subject '{}'", e, subject);
             throw new NatsException.PublishException("Failed to publish raw message to subject: " + subject, e);
         }
     }
@@ -62,37 +92,132 @@ public class NatsAPIImpl implements NatsAPI {
         byte[] bytes = data != null ? data.getBytes(StandardCharsets.UTF_8) : null;
         publishRaw(subject, bytes);
 
-        getLogger().debug("Published string message to subject '{}': {}", subject,
-                data != null ? data.substring(0, Math.min(data.length(), 100)) + "..." : "null");
+        if (logger.isDebugEnabled()) {
+            logger.debug("Published string message to subject '{}': {}", subject,
+                    data != null ? data.substring(0, Math.min(data.length(), 100)) + "..." : "null");
+        }
+    }
+
+    @Override
+    public void publish(@NotNull String subject, @Nullable ByteBuffer payload) {
+        publishRaw(subject, payload != null ? toArray(payload) : null);
     }
 
     @Override
     public CompletableFuture<Void> publishRawAsync(@NotNull String subject, @Nullable byte[] data) {
-        return CompletableFuture.runAsync(() -> publishRaw(subject, data));
+        return asyncPublisher.submit(subject, () -> publishRaw(subject, data));
     }
 
     @Override
     public CompletableFuture<Void> publishStringAsync(@NotNull String subject, @Nullable String data) {
-        return CompletableFuture.runAsync(() -> publishString(subject, data));
+        return asyncPublisher.submit(subject, () -> publishString(subject, data));
     }
 
     @Override
-    public void subscribeSubject(@NotNull String subject, @NotNull Consumer<byte[]> consumer, boolean async) {
-        subscriptionManager.registerConsumerSubscription(subject, consumer, async);
+    public CompletableFuture<byte[]> requestAsync(@NotNull String subject, @Nullable byte[] data,
+            @NotNull Duration timeout) {
+        validateSubject(subject);
+        return requestMultiplexer.request(getConnectionOrThrow(), subject, data, timeout);
     }
 
     @Override
-    public void subscribeStringSubject(@NotNull String subject, @NotNull Consumer<String> consumer, boolean async) {
-        // Convert String consumer to byte[] consumer
-        Consumer<byte[]> byteConsumer = data -> {
-            if (data == null) {
-                consumer.accept(null);
-            } else {
-                String message = new String(data, StandardCharsets.UTF_8);
-                consumer.accept(message);
-            }
-        };
-        subscriptionManager.registerConsumerSubscription(subject, byteConsumer, async);
+    public CompletableFuture<List<byte[]>> scatterGather(@NotNull String subject, @Nullable byte[] data,
+            int expectedResponders, @NotNull Duration timeout, @Nullable Consumer<byte[]> onReply) {
+        validateSubject(subject);
+        return requestMultiplexer.scatterGather(getConnectionOrThrow(), subject, data, expectedResponders,
+                timeout, onReply);
+    }
+
+    @Override
+    public NatsSubscription subscribeRequest(@NotNull String subject, @Nullable String queueGroup,
+            @NotNull Consumer<NatsRequest> handler, @NotNull DeliveryMode mode) {
+        validateQueueGroup(queueGroup);
+        return subscriptionManager.registerRequestSubscription(subject, queueGroup, handler,
+                mode == DeliveryMode.ASYNC);
+    }
+
+    @Override
+    public NatsSubscription subscribeSubject(@NotNull String subject, @NotNull Consumer<byte[]> consumer,
+            @NotNull Executor executor) {
+        // Received on the shared dispatcher, which only hands the message over
+        return subscriptionManager.registerConsumerSubscription(subject,
+                data -> executor.execute(() -> consumer.accept(data)), false);
+    }
+
+    @Override
+    public NatsSubscription subscribeRouted(@NotNull String subject, @NotNull Consumer<byte[]> consumer,
+            @NotNull DeliveryRouter router) {
+        return subscriptionManager.registerRoutedSubscription(subject, consumer, router);
+    }
+
+    @Override
+    public NatsSubscription subscribeLatest(@NotNull String subject, @NotNull Function<String, String> keyExtractor,
+            @NotNull BiConsumer<String, byte[]> consumer) {
+        return subscriptionManager.registerLatestSubscription(subject, keyExtractor, consumer);
+    }
+
+    @Override
+    public NatsSubscription subscribeBatch(@NotNull String subject, int maxBatch, @NotNull Duration maxWait,
+            @NotNull Consumer<List<byte[]>> consumer) {
+        if (maxBatch < 1) {
+            throw new IllegalArgumentException("maxBatch must be at least 1");
+        }
+        if (maxWait.isNegative() || maxWait.isZero()) {
+            throw new IllegalArgumentException("maxWait must be positive");
+        }
+        return subscriptionManager.registerBatchSubscription(subject, maxBatch, maxWait, consumer);
+    }
+
+    @Override
+    public NatsSubscription subscribeOrdered(@NotNull String subject, @NotNull OrderingKey orderingKey,
+            @NotNull Consumer<byte[]> consumer) {
+        return subscriptionManager.registerOrderedSubscription(subject, orderingKey, consumer);
+    }
+
+    @Override
+    public NatsSubscription subscribeSubject(@NotNull String subject, @Nullable String queueGroup,
+            @NotNull Consumer<byte[]> consumer, @NotNull DeliveryMode mode) {
+        validateQueueGroup(queueGroup);
+        return subscriptionManager.registerConsumerSubscription(subject, queueGroup, consumer,
+                mode == DeliveryMode.ASYNC);
+    }
+
+    @Override
+    public NatsSubscription subscribeStringSubject(@NotNull String subject, @NotNull Consumer<String> consumer,
+            boolean async, @NotNull StringDecoding decoding) {
+        return subscriptionManager.registerConsumerSubscription(subject, decoding(consumer, decoding), async);
+    }
+
+    /**
+     * Converts a String consumer to a byte[] consumer decoding UTF-8 payloads.
+     */
+    static Consumer<byte[]> decoding(@NotNull Consumer<String> consumer, @NotNull StringDecoding decoding) {
+        if (decoding == StringDecoding.CACHED) {
+            Utf8DecodeCache cache = new Utf8DecodeCache();
+            return data -> consumer.accept(data != null ? cache.decode(data) : null);
+        }
+        return data -> consumer.accept(data != null ? new String(data, StandardCharsets.UTF_8) : null);
+    }
+
+    @Override
+    public NatsSubscription subscribeBuffer(@NotNull String subject, @NotNull Consumer<ByteBuffer> consumer,
+            boolean async) {
+        // Read-only view over the received array, no copy
+        Consumer<byte[]> byteConsumer = data -> consumer.accept(
+                data != null ? ByteBuffer.wrap(data).asReadOnlyBuffer() : null);
+        return subscriptionManager.registerConsumerSubscription(subject, byteConsumer, async);
+    }
+
+    @Override
+    public void registerHandlers(@NotNull Object handler) {
+        NatsBinder binder = HandlerBinders.find(handler.getClass());
+        if (binder == null) {
+            throw new IllegalArgumentException("No NATS handler binder generated for " + handler.getClass().getName()
+                    + ". Is the NatsBridge annotation processor configured?");
+        }
+
+        binder.bind(handler, this);
+        logger.debug("Registered annotated handlers of {}", handler.getClass().getName());
     }
 
     @Override
@@ -112,14 +237,43 @@ public class NatsAPIImpl implements NatsAPI {
     }
 
     private Connection getConnectionOrThrow() {
-        Connection connection = connectionManager.getConnection();
+        return checkConnected(connectionManager.getConnection());
+    }
+
+    private static Connection checkConnected(@Nullable Connection connection) {
         if (connection == null || connection.getStatus() != Connection.Status.CONNECTED) {
             throw new IllegalStateException("NATS connection is not available. Status: " +
-                    connectionManager.getConnectionStatus());
+                    (connection != null ? connection.getStatus() : "DISCONNECTED"));
         }
         return connection;
     }
 
+    private static byte[] toArray(@NotNull ByteBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+                && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+
+        // The NATS client only accepts whole arrays, copy the remaining bytes once
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(buffer.position(), data);
+        return data;
+    }
+
+    private void validateQueueGroup(@Nullable String queueGroup) {
+        if (queueGroup == null) {
+            return;
+        }
+
+        if (queueGroup.trim().isEmpty()) {
+            throw new IllegalArgumentException("Queue group cannot be empty or blank");
+        }
+
+        if (queueGroup.contains(" ")) {
+            throw new IllegalArgumentException("Queue group cannot contain spaces: " + queueGroup);
+        }
+    }
+
     private void validateSubject(@NotNull String subject) {
         if (subject.trim().isEmpty()) {
             throw new IllegalArgumentException("Subject cannot be empty or blank");
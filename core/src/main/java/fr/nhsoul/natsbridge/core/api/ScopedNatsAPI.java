@@ -0,0 +1,464 @@
+package fr.nhsoul.natsbridge.core.api;
+
+import fr.nhsoul.natsbridge.common.annotation.NatsBinder;
+import fr.nhsoul.natsbridge.common.api.DeliveryMode;
+import fr.nhsoul.natsbridge.common.api.DeliveryRouter;
+import fr.nhsoul.natsbridge.common.api.NatsAPI;
+import fr.nhsoul.natsbridge.common.api.NatsRequest;
+import fr.nhsoul.natsbridge.common.api.NatsSubscription;
+import fr.nhsoul.natsbridge.common.api.OrderingKey;
+import fr.nhsoul.natsbridge.common.api.StringDecoding;
+import fr.nhsoul.natsbridge.common.config.NatsConfig.PublishConfig.PublishQuota.OverLimitPolicy;
+import fr.nhsoul.natsbridge.common.exception.NatsException;
+import fr.nhsoul.natsbridge.common.logger.NatsLogger;
+import fr.nhsoul.natsbridge.core.publish.PublishQuotaLimiter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+
+/**
+ * NATS API handed to a single owner (usually a plugin).
+ * <p>
+ * Every call is forwarded to the shared API, but the subscriptions made through
+ * it are tracked, so they can all be cancelled when the owner goes away (e.g. on
+ * plugin disable) instead of pinning dead consumers and their class loader. Once
+ * released, messages already handed off (e.g. queued for the server thread) are
+ * no longer passed to the consumers of the owner. It also counts the messages
+ * published and received by its owner, and applies its publish quota if any.
+ */
+public class ScopedNatsAPI implements NatsAPI {
+
+    private static final CompletableFuture<Void> PUBLISHED = CompletableFuture.completedFuture(null);
+
+    private final String owner;
+    private final NatsAPI delegate;
+    private final PublishQuotaLimiter quotaLimiter;
+    private final NatsLogger logger;
+
+    private final Set<NatsSubscription> subscriptions = ConcurrentHashMap.newKeySet();
+    private volatile boolean released;
+
+    private final LongAdder publishedMessages = new LongAdder();
+    private final LongAdder publishedBytes = new LongAdder();
+    private final LongAdder receivedMessages = new LongAdder();
+    private final LongAdder receivedBytes = new LongAdder();
+
+    public ScopedNatsAPI(@NotNull String owner, @NotNull NatsAPI delegate, @NotNull NatsLogger logger) {
+        this(owner, delegate, null, logger);
+    }
+
+    /**
+     * @param quotaLimiter the publish quota of the owner, or null if it is not rate limited
+     */
+    public ScopedNatsAPI(@NotNull String owner, @NotNull NatsAPI delegate, @Nullable PublishQuotaLimiter quotaLimiter,
+                         @NotNull NatsLogger logger) {
+        this.owner = owner;
+        this.delegate = delegate;
+        this.quotaLimiter = quotaLimiter;
+        this.logger = logger;
+    }
+
+    /**
+     * A subscription of the owner, forgotten once unsubscribed.
+     */
+    private final class OwnedSubscription implements NatsSubscription {
+        private final NatsSubscription subscription;
+
+        OwnedSubscription(NatsSubscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        @NotNull
+        public String getSubject() {
+            return subscription.getSubject();
+        }
+
+        @Override
+        @Nullable
+        public String getQueueGroup() {
+            return subscription.getQueueGroup();
+        }
+
+        @Override
+        public boolean isActive() {
+            return subscription.isActive();
+        }
+
+        @Override
+        public void unsubscribe() {
+            subscriptions.remove(this);
+            subscription.unsubscribe();
+        }
+
+        @Override
+        public String toString() {
+            return subscription + " of " + owner;
+        }
+    }
+
+    @NotNull
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Checks whether this API was released: its subscriptions were cancelled and
+     * new ones are refused.
+     */
+    public boolean isReleased() {
+        return released;
+    }
+
+    /**
+     * Cancels every subscription made through this API and refuses new ones.
+     *
+     * @return the number of cancelled subscriptions
+     */
+    public int release() {
+        released = true;
+        int cancelled = 0;
+        for (NatsSubscription subscription : subscriptions) {
+            subscription.unsubscribe();
+            cancelled++;
+        }
+        if (cancelled > 0) {
+            logger.info("Cancelled {} NATS subscriptions of {}", cancelled, owner);
+        }
+        return cancelled;
+    }
+
+    /**
+     * Gets the number of active subscriptions made through this API.
+     */
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    public long getPublishedMessages() {
+        return publishedMessages.sum();
+    }
+
+    public long getPublishedBytes() {
+        return publishedBytes.sum();
+    }
+
+    /**
+     * Gets the number of messages (or requests) handed to the consumers of the owner.
+     */
+    public long getReceivedMessages() {
+        return receivedMessages.sum();
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes.sum();
+    }
+
+    /**
+     * Gets the publish quota of the owner.
+     *
+     * @return the quota limiter, or null if the owner is not rate limited
+     */
+    @Nullable
+    public PublishQuotaLimiter getQuotaLimiter() {
+        return quotaLimiter;
+    }
+
+    @Override
+    public String toString() {
+        return owner + ": " + getSubscriptionCount() + " subscriptions, published=" + getPublishedMessages()
+                + " (" + getPublishedBytes() + " bytes), received=" + getReceivedMessages()
+                + " (" + getReceivedBytes() + " bytes)" + (quotaLimiter != null ? ", " + quotaLimiter : "");
+    }
+
+    /**
+     * Publishes a message within the quota of the owner.
+     *
+     * @throws NatsException.PublishException if the quota rejects the message
+     */
+    @Override
+    public void publishRaw(@NotNull String subject, @Nullable byte[] data) {
+        publishWithinQuota(subject, data != null ? data.length : 0, () -> delegate.publishRaw(subject, data));
+    }
+
+    /**
+     * Publishes a message within the quota of the owner.
+     *
+     * @throws NatsException.PublishException if the quota rejects the message
+     */
+    @Override
+    public void publishString(@NotNull String subject, @Nullable String data) {
+        // Encoded once, both to charge the quota and to publish
+        byte[] bytes = data != null ? data.getBytes(StandardCharsets.UTF_8) : null;
+        publishRaw(subject, bytes);
+    }
+
+    /**
+     * Publishes a message within the quota of the owner. A message delayed by the
+     * quota is copied, so the buffer can be reused once this method returns.
+     *
+     * @throws NatsException.PublishException if the quota rejects the message
+     */
+    @Override
+    public void publish(@NotNull String subject, @Nullable ByteBuffer payload) {
+        int bytes = payload != null ? payload.remaining() : 0;
+        if (payload != null && quotaLimiter != null
+                && quotaLimiter.getQuota().getPolicy() == OverLimitPolicy.DELAY) {
+            byte[] copy = new byte[bytes];
+            payload.duplicate().get(copy);
+            publishWithinQuota(subject, bytes, () -> delegate.publishRaw(subject, copy));
+        } else {
+            publishWithinQuota(subject, bytes, () -> delegate.publish(subject, payload));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> publishRawAsync(@NotNull String subject, @Nullable byte[] data) {
+        return publishAsyncWithinQuota(subject, data != null ? data.length : 0, true,
+                () -> delegate.publishRawAsync(subject, data));
+    }
+
+    @Override
+    public CompletableFuture<Void> publishStringAsync(@NotNull String subject, @Nullable String data) {
+        byte[] bytes = data != null ? data.getBytes(StandardCharsets.UTF_8) : null;
+        return publishRawAsync(subject, bytes);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> requestAsync(@NotNull String subject, @Nullable byte[] data,
+            @NotNull Duration timeout) {
+        return publishAsyncWithinQuota(subject, data != null ? data.length : 0, false,
+                () -> delegate.requestAsync(subject, data, timeout));
+    }
+
+    @Override
+    public CompletableFuture<List<byte[]>> scatterGather(@NotNull String subject, @Nullable byte[] data,
+            int expectedResponders, @NotNull Duration timeout, @Nullable Consumer<byte[]> onReply) {
+        return publishAsyncWithinQuota(subject, data != null ? data.length : 0, false,
+                () -> delegate.scatterGather(subject, data, expectedResponders, timeout, onReply));
+    }
+
+    @Override
+    public NatsSubscription subscribeRequest(@NotNull String subject, @Nullable String queueGroup,
+            @NotNull Consumer<NatsRequest> handler, @NotNull DeliveryMode mode) {
+        checkNotReleased();
+        return track(delegate.subscribeRequest(subject, queueGroup, request -> {
+            if (released) {
+                return;
+            }
+            received(request.getData());
+            handler.accept(request);
+        }, mode));
+    }
+
+    @Override
+    public NatsSubscription subscribeSubject(@NotNull String subject, @NotNull Consumer<byte[]> consumer,
+            @NotNull Executor executor) {
+        checkNotReleased();
+        return track(delegate.subscribeSubject(subject, counting(consumer), executor));
+    }
+
+    @Override
+    public NatsSubscription subscribeRouted(@NotNull String subject, @NotNull Consumer<byte[]> consumer,
+            @NotNull DeliveryRouter router) {
+        checkNotReleased();
+        return track(delegate.subscribeRouted(subject, counting(consumer), router));
+    }
+
+    @Override
+    public NatsSubscription subscribeLatest(@NotNull String subject, @NotNull Function<String, String> keyExtractor,
+            @NotNull BiConsumer<String, byte[]> consumer) {
+        checkNotReleased();
+        return track(delegate.subscribeLatest(subject, keyExtractor, (key, data) -> {
+            if (released) {
+                return;
+            }
+            received(data);
+            consumer.accept(key, data);
+        }));
+    }
+
+    @Override
+    public NatsSubscription subscribeBatch(@NotNull String subject, int maxBatch, @NotNull Duration maxWait,
+            @NotNull Consumer<List<byte[]>> consumer) {
+        checkNotReleased();
+        return track(delegate.subscribeBatch(subject, maxBatch, maxWait, batch -> {
+            if (released) {
+                return;
+            }
+            for (byte[] data : batch) {
+                received(data);
+            }
+            consumer.accept(batch);
+        }));
+    }
+
+    @Override
+    public NatsSubscription subscribeOrdered(@NotNull String subject, @NotNull OrderingKey orderingKey,
+            @NotNull Consumer<byte[]> consumer) {
+        checkNotReleased();
+        return track(delegate.subscribeOrdered(subject, orderingKey, counting(consumer)));
+    }
+
+    @Override
+    public NatsSubscription subscribeSubject(@NotNull String subject, @Nullable String queueGroup,
+            @NotNull Consumer<byte[]> consumer, @NotNull DeliveryMode mode) {
+        checkNotReleased();
+        return track(delegate.subscribeSubject(subject, queueGroup, counting(consumer), mode));
+    }
+
+    @Override
+    public NatsSubscription subscribeStringSubject(@NotNull String subject, @NotNull Consumer<String> consumer,
+            boolean async, @NotNull StringDecoding decoding) {
+        checkNotReleased();
+        // Subscribed as bytes, so the payload size is accounted before decoding
+        return track(delegate.subscribeSubject(subject, counting(NatsAPIImpl.decoding(consumer, decoding)), async));
+    }
+
+    @Override
+    public NatsSubscription subscribeBuffer(@NotNull String subject, @NotNull Consumer<ByteBuffer> consumer,
+            boolean async) {
+        checkNotReleased();
+        return track(delegate.subscribeBuffer(subject, buffer -> {
+            if (released) {
+                return;
+            }
+            receivedMessages.increment();
+            if (buffer != null) {
+                receivedBytes.add(buffer.remaining());
+            }
+            consumer.accept(buffer);
+        }, async));
+    }
+
+    @Override
+    public void registerHandlers(@NotNull Object handler) {
+        checkNotReleased();
+        NatsBinder binder = HandlerBinders.find(handler.getClass());
+        if (binder == null) {
+            throw new IllegalArgumentException("No NATS handler binder generated for " + handler.getClass().getName()
+                    + ". Is the NatsBridge annotation processor configured?");
+        }
+
+        // Subscribes through this API, so the handlers are owned too
+        binder.bind(handler, this);
+        logger.debug("Registered annotated handlers of {} for {}", handler.getClass().getName(), owner);
+    }
+
+    /**
+     * Cancels the subscriptions of the owner on a given NATS subject. Subscriptions
+     * of other owners on the same subject are left untouched.
+     *
+     * @param subject the NATS subject to unsubscribe
+     */
+    @Override
+    public void unsubscribeSubject(@NotNull String subject) {
+        for (NatsSubscription subscription : subscriptions) {
+            if (subscription.getSubject().equals(subject)) {
+                subscription.unsubscribe();
+            }
+        }
+    }
+
+    @Override
+    public boolean isConnected() {
+        return delegate.isConnected();
+    }
+
+    @Override
+    @NotNull
+    public String getConnectionStatus() {
+        return delegate.getConnectionStatus();
+    }
+
+    private NatsSubscription track(NatsSubscription subscription) {
+        OwnedSubscription owned = new OwnedSubscription(subscription);
+        subscriptions.add(owned);
+        if (released) {
+            // Released while subscribing
+            owned.unsubscribe();
+        }
+        return owned;
+    }
+
+    private Consumer<byte[]> counting(Consumer<byte[]> consumer) {
+        return data -> {
+            if (released) {
+                return;
+            }
+            received(data);
+            consumer.accept(data);
+        };
+    }
+
+    private void publishWithinQuota(String subject, int bytes, Runnable publication) {
+        if (quotaLimiter == null) {
+            publication.run();
+            published(bytes);
+            return;
+        }
+
+        CompletableFuture<Void> future = quotaLimiter.submit(subject, bytes, true, () -> {
+            publication.run();
+            published(bytes);
+            return PUBLISHED;
+        });
+        if (!future.isDone()) {
+            // Delayed: nobody is left to report a failure to
+            future.exceptionally(e -> {
+                logger.error("Failed to publish delayed message on subject {}", e, subject);
+                return null;
+            });
+        }
+    }
+
+    private <T> CompletableFuture<T> publishAsyncWithinQuota(String subject, int bytes, boolean droppable,
+            Supplier<CompletableFuture<T>> publication) {
+        Supplier<CompletableFuture<T>> counted = () -> {
+            CompletableFuture<T> future = publication.get();
+            published(bytes);
+            return future;
+        };
+        if (quotaLimiter == null) {
+            return counted.get();
+        }
+
+        try {
+            return quotaLimiter.submit(subject, bytes, droppable, counted);
+        } catch (NatsException.PublishException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void published(int bytes) {
+        publishedMessages.increment();
+        publishedBytes.add(bytes);
+    }
+
+    private void received(@Nullable byte[] data) {
+        receivedMessages.increment();
+        if (data != null) {
+            receivedBytes.add(data.length);
+        }
+    }
+
+    private void checkNotReleased() {
+        if (released) {
+            throw new IllegalStateException("The NATS API of " + owner + " was released");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package fr.nhsoul.natsbridge.core.buffer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * Bounded, content-keyed cache of decoded UTF-8 strings.
+ * <p>
+ * The cache is direct-mapped: a payload hashes to a single slot, which holds the
+ * last payload decoded there. A hit returns the cached String without allocating;
+ * a miss decodes the payload and replaces the slot. Slots hold immutable entries,
+ * so the cache is safe to share between threads without locking. Payloads longer
+ * than {@link #MAX_CACHED_LENGTH} bytes are decoded without being cached.
+ */
+public final class Utf8DecodeCache {
+
+    public static final int MAX_CACHED_LENGTH = 64;
+    private static final int SLOTS = 1024;
+
+    private final Entry[] slots = new Entry[SLOTS];
+
+    /**
+     * Decodes a UTF-8 payload, reusing a cached String when the same content was
+     * decoded before.
+     */
+    @NotNull
+    public String decode(byte[] data) {
+        int length = data.length;
+        if (length > MAX_CACHED_LENGTH) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+
+        // Hash and ASCII check in a single pass
+        int hash = 1;
+        int nonAscii = 0;
+        for (byte b : data) {
+            hash = 31 * hash + b;
+            nonAscii |= b;
+        }
+
+        int index = (hash ^ (hash >>> 16)) & (SLOTS - 1);
+        Entry entry = slots[index];
+        if (entry != null && entry.hash == hash && Arrays.equals(entry.bytes, data)) {
+            return entry.value;
+        }
+
+        String value = nonAscii >= 0
+                ? new String(data, StandardCharsets.ISO_8859_1) // ASCII: plain byte copy, no decoding
+                : new String(data, StandardCharsets.UTF_8);
+        slots[index] = new Entry(hash, data.clone(), value);
+        return value;
+    }
+
+    private static final class Entry {
+        final int hash;
+        final byte[] bytes;
+        final String value;
+
+        Entry(int hash, byte[] bytes, String value) {
+            this.hash = hash;
+            this.bytes = bytes;
+            this.value = value;
+        }
+    }
+}
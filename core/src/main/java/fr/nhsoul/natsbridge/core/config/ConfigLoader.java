@@ -3,7 +3,6 @@ package fr.nhsoul.natsbridge.core.config;
 import fr.nhsoul.natsbridge.common.config.NatsConfig;
 import fr.nhsoul.natsbridge.common.exception.NatsException;
 import fr.nhsoul.natsbridge.common.logger.NatsLogger;
-import fr.nhsoul.natsbridge.core.DefaultSlf4jLogger;
 import fr.nhsoul.natsbridge.core.NatsBridge;
 import org.jetbrains.annotations.NotNull;
 import org.yaml.snakeyaml.Yaml;
@@ -12,8 +11,10 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 
@@ -23,16 +24,35 @@ import java.util.Map;
  */
 public class ConfigLoader {
 
-    private static NatsLogger getLogger() {
-        NatsBridge bridge = NatsBridge.getInstance();
-        return bridge != null ? bridge.getLogger() : new DefaultSlf4jLogger(ConfigLoader.class);
-    }
+    private static final NatsLogger logger = NatsBridge.getLoggerFacade();
 
     // Default values
     private static final List<String> DEFAULT_SERVERS = Arrays.asList("nats://127.0.0.1:4222");
     private static final int DEFAULT_MAX_RECONNECTS = -1; // Infinite
     private static final long DEFAULT_RECONNECT_WAIT_MS = 2000;
     private static final long DEFAULT_CONNECTION_TIMEOUT_MS = 5000;
+    private static final int DEFAULT_DISPATCHER_POOL_SIZE = 1;
+    private static final NatsConfig.SubscriptionConfig.DispatcherAssignment DEFAULT_DISPATCHER_ASSIGNMENT =
+            NatsConfig.SubscriptionConfig.DispatcherAssignment.CONSISTENT_HASH;
+    private static final long DEFAULT_MAIN_THREAD_BUDGET_MS = 5;
+    private static final int DEFAULT_ORDERED_STRIPES = 0; // One per available core
+    private static final int DEFAULT_PENDING_MAX_MESSAGES = 10_000;
+    private static final long DEFAULT_PENDING_MAX_BYTES = 0; // No byte limit
+    private static final NatsConfig.SubscriptionConfig.PendingLimit.OverflowPolicy DEFAULT_PENDING_OVERFLOW =
+            NatsConfig.SubscriptionConfig.PendingLimit.OverflowPolicy.DROP_OLDEST;
+    private static final int DEFAULT_BATCH_MAX_MESSAGES = 256;
+    private static final int DEFAULT_BATCH_MAX_BYTES = 64 * 1024;
+    private static final long DEFAULT_BATCH_LINGER_MS = 5;
+    private static final NatsConfig.PublishConfig.AsyncConfig.ExecutorType DEFAULT_ASYNC_EXECUTOR =
+            NatsConfig.PublishConfig.AsyncConfig.ExecutorType.VIRTUAL;
+    private static final int DEFAULT_ASYNC_THREADS = 2;
+    private static final int DEFAULT_ASYNC_QUEUE_SIZE = 10_000;
+    private static final long DEFAULT_ASYNC_ACK_TIMEOUT_MS = 5000;
+    private static final long DEFAULT_QUOTA_MESSAGES_PER_SECOND = 0; // No message limit
+    private static final long DEFAULT_QUOTA_BYTES_PER_SECOND = 0; // No byte limit
+    private static final NatsConfig.PublishConfig.PublishQuota.OverLimitPolicy DEFAULT_QUOTA_POLICY =
+            NatsConfig.PublishConfig.PublishQuota.OverLimitPolicy.REJECT;
+    private static final long DEFAULT_QUOTA_MAX_DELAY_MS = 1000;
 
     /**
      * Loads configuration from a file.
@@ -43,17 +63,17 @@ public class ConfigLoader {
      */
     @NotNull
     public static NatsConfig loadFromFile(@NotNull File configFile) {
-        getLogger().info("Loading NATS configuration from: {}", configFile.getAbsolutePath());
+        logger.info("Loading NATS configuration from: {}", configFile.getAbsolutePath());
 
         if (!configFile.exists()) {
-            getLogger().warn("Configuration file not found, using default configuration");
+            logger.warn("Configuration file not found, using default configuration");
             return createDefaultConfig();
         }
 
         try (FileInputStream fis = new FileInputStream(configFile)) {
             return loadFromStream(fis);
         } catch (IOException e) {
-            getLogger().error("Failed to read configuration file: {}", e, configFile.getAbsolutePath());
+            logger.error("Failed to read configuration file: {}", e, configFile.getAbsolutePath());
             throw new NatsException.ConfigurationException("Failed to read configuration file", e);
         }
     }
@@ -72,14 +92,14 @@ public class ConfigLoader {
             Map<String, Object> data = yaml.load(inputStream);
 
             if (data == null) {
-                getLogger().warn("Empty configuration file, using defaults");
+                logger.warn("Empty configuration file, using defaults");
                 return createDefaultConfig();
             }
 
             return parseConfiguration(data);
 
         } catch (Exception e) {
-            getLogger().error("Failed to parse YAML configuration", e);
+            logger.error("Failed to parse YAML configuration", e);
             throw new NatsException.ConfigurationException("Failed to parse YAML configuration", e);
         }
     }
@@ -91,25 +111,42 @@ public class ConfigLoader {
      */
     @NotNull
     public static NatsConfig createDefaultConfig() {
-        getLogger().info("Creating default NATS configuration");
+        logger.info("Creating default NATS configuration");
 
         NatsConfig.ReconnectConfig reconnect = new NatsConfig.ReconnectConfig(
                 DEFAULT_MAX_RECONNECTS,
                 DEFAULT_RECONNECT_WAIT_MS,
                 DEFAULT_CONNECTION_TIMEOUT_MS);
 
+        NatsConfig.SubscriptionConfig subscriptions = NatsConfig.SubscriptionConfig.builder()
+                .dispatcherPoolSize(DEFAULT_DISPATCHER_POOL_SIZE)
+                .dispatcherAssignment(DEFAULT_DISPATCHER_ASSIGNMENT)
+                .mainThreadBudgetMs(DEFAULT_MAIN_THREAD_BUDGET_MS)
+                .orderedStripes(Runtime.getRuntime().availableProcessors())
+                .build(); // No pending limits by default
+
+        NatsConfig.PublishConfig publish = NatsConfig.PublishConfig.builder()
+                .async(new NatsConfig.PublishConfig.AsyncConfig(
+                        DEFAULT_ASYNC_EXECUTOR,
+                        DEFAULT_ASYNC_THREADS,
+                        DEFAULT_ASYNC_QUEUE_SIZE,
+                        DEFAULT_ASYNC_ACK_TIMEOUT_MS))
+                .build(); // No batching, quotas nor lanes by default
+
         return new NatsConfig(
                 DEFAULT_SERVERS,
                 null, // No auth by default
                 null, // No TLS by default
-                reconnect);
+                reconnect,
+                subscriptions,
+                publish);
     }
 
     @SuppressWarnings("unchecked")
     private static NatsConfig parseConfiguration(@NotNull Map<String, Object> data) {
         Map<String, Object> natsConfig = (Map<String, Object>) data.get("nats");
         if (natsConfig == null) {
-            getLogger().warn("No 'nats' section found in configuration, using defaults");
+            logger.warn("No 'nats' section found in configuration, using defaults");
             return createDefaultConfig();
         }
 
@@ -125,7 +162,13 @@ public class ConfigLoader {
         // Reconnection
         NatsConfig.ReconnectConfig reconnect = parseReconnect(natsConfig);
 
-        return new NatsConfig(servers, auth, tls, reconnect);
+        // Subscriptions
+        NatsConfig.SubscriptionConfig subscriptions = parseSubscriptions(natsConfig);
+
+        // Publication
+        NatsConfig.PublishConfig publish = parsePublish(natsConfig);
+
+        return new NatsConfig(servers, auth, tls, reconnect, subscriptions, publish);
     }
 
     @SuppressWarnings("unchecked")
@@ -134,12 +177,12 @@ public class ConfigLoader {
         if (serversObj instanceof List) {
             List<String> servers = (List<String>) serversObj;
             if (!servers.isEmpty()) {
-                getLogger().debug("Loaded {} NATS servers from configuration", servers.size());
+                logger.debug("Loaded {} NATS servers from configuration", servers.size());
                 return servers;
             }
         }
 
-        getLogger().debug("Using default NATS servers");
+        logger.debug("Using default NATS servers");
         return DEFAULT_SERVERS;
     }
 
@@ -160,11 +203,11 @@ public class ConfigLoader {
         String token = parseString(authConfig, "token", null);
 
         if (token == null && (username == null || password == null)) {
-            getLogger().warn("Authentication enabled but no valid credentials provided");
+            logger.warn("Authentication enabled but no valid credentials provided");
             return null;
         }
 
-        getLogger().debug("Authentication configured: {}",
+        logger.debug("Authentication configured: {}",
                 token != null ? "token" : "username/password");
 
         return new NatsConfig.AuthConfig(enabled, username, password, token);
@@ -187,7 +230,7 @@ public class ConfigLoader {
         String truststore = parseString(tlsConfig, "truststore", null);
         String truststorePassword = parseString(tlsConfig, "truststore_password", null);
 
-        getLogger().debug("TLS configuration loaded");
+        logger.debug("TLS configuration loaded");
 
         return new NatsConfig.TlsConfig(enabled, keystore, keystorePassword, truststore, truststorePassword);
     }
@@ -203,12 +246,178 @@ public class ConfigLoader {
         long reconnectWait = parseLong(reconnectConfig, "reconnect_wait", DEFAULT_RECONNECT_WAIT_MS);
         long connectionTimeout = parseLong(reconnectConfig, "connection_timeout", DEFAULT_CONNECTION_TIMEOUT_MS);
 
-        getLogger().debug("Reconnect configuration: maxReconnects={}, reconnectWait={}ms, connectionTimeout={}ms",
+        logger.debug("Reconnect configuration: maxReconnects={}, reconnectWait={}ms, connectionTimeout={}ms",
                 maxReconnects, reconnectWait, connectionTimeout);
 
         return new NatsConfig.ReconnectConfig(maxReconnects, reconnectWait, connectionTimeout);
     }
 
+    @SuppressWarnings("unchecked")
+    private static NatsConfig.SubscriptionConfig parseSubscriptions(@NotNull Map<String, Object> config) {
+        Map<String, Object> subscriptionConfig = (Map<String, Object>) config.get("subscriptions");
+        if (subscriptionConfig == null) {
+            subscriptionConfig = Map.of(); // Empty map to use defaults
+        }
+
+        int poolSize = parseInt(subscriptionConfig, "dispatcher_pool_size", DEFAULT_DISPATCHER_POOL_SIZE);
+        if (poolSize <= 0) {
+            // 0 (or less) means one dispatcher per available core
+            poolSize = Runtime.getRuntime().availableProcessors();
+        }
+
+        NatsConfig.SubscriptionConfig.DispatcherAssignment assignment = parseEnum(subscriptionConfig, "assignment",
+                NatsConfig.SubscriptionConfig.DispatcherAssignment.class, DEFAULT_DISPATCHER_ASSIGNMENT);
+
+        long mainThreadBudget = parseLong(subscriptionConfig, "main_thread_budget_ms", DEFAULT_MAIN_THREAD_BUDGET_MS);
+
+        int orderedStripes = parseInt(subscriptionConfig, "ordered_stripes", DEFAULT_ORDERED_STRIPES);
+        if (orderedStripes <= 0) {
+            orderedStripes = Runtime.getRuntime().availableProcessors();
+        }
+
+        List<NatsConfig.SubscriptionConfig.PendingLimit> pendingLimits = new ArrayList<>();
+        Object limitsObj = subscriptionConfig.get("pending_limits");
+        if (limitsObj instanceof List) {
+            for (Object limitObj : (List<Object>) limitsObj) {
+                if (!(limitObj instanceof Map)) {
+                    throw new NatsException.ConfigurationException("Invalid pending limit: " + limitObj);
+                }
+                Map<String, Object> limit = (Map<String, Object>) limitObj;
+                String subject = parseString(limit, "subject", null);
+                if (subject == null) {
+                    throw new NatsException.ConfigurationException("Pending limit without 'subject': " + limit);
+                }
+
+                pendingLimits.add(new NatsConfig.SubscriptionConfig.PendingLimit(subject,
+                        parseInt(limit, "max_messages", DEFAULT_PENDING_MAX_MESSAGES),
+                        parseLong(limit, "max_bytes", DEFAULT_PENDING_MAX_BYTES),
+                        parseEnum(limit, "overflow", NatsConfig.SubscriptionConfig.PendingLimit.OverflowPolicy.class,
+                                DEFAULT_PENDING_OVERFLOW)));
+            }
+        }
+
+        logger.debug("Subscription configuration: dispatcherPoolSize={}, assignment={}, mainThreadBudget={}ms, "
+                + "orderedStripes={}, {} pending limits", poolSize, assignment, mainThreadBudget, orderedStripes,
+                pendingLimits.size());
+
+        return NatsConfig.SubscriptionConfig.builder()
+                .dispatcherPoolSize(poolSize)
+                .dispatcherAssignment(assignment)
+                .mainThreadBudgetMs(mainThreadBudget)
+                .pendingLimits(pendingLimits)
+                .orderedStripes(orderedStripes)
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static NatsConfig.PublishConfig parsePublish(@NotNull Map<String, Object> config) {
+        Map<String, Object> publishConfig = (Map<String, Object>) config.get("publish");
+        if (publishConfig == null) {
+            publishConfig = Map.of(); // Empty map to use defaults
+        }
+
+        List<NatsConfig.PublishConfig.BatchingRule> batching = new ArrayList<>();
+        Object batchingObj = publishConfig.get("batching");
+        if (batchingObj instanceof List) {
+            for (Object ruleObj : (List<Object>) batchingObj) {
+                if (!(ruleObj instanceof Map)) {
+                    throw new NatsException.ConfigurationException("Invalid batching rule: " + ruleObj);
+                }
+                Map<String, Object> rule = (Map<String, Object>) ruleObj;
+                String prefix = parseString(rule, "prefix", null);
+                if (prefix == null) {
+                    throw new NatsException.ConfigurationException("Batching rule without 'prefix': " + rule);
+                }
+
+                batching.add(new NatsConfig.PublishConfig.BatchingRule(prefix,
+                        parseInt(rule, "max_messages", DEFAULT_BATCH_MAX_MESSAGES),
+                        parseInt(rule, "max_bytes", DEFAULT_BATCH_MAX_BYTES),
+                        parseLong(rule, "linger_ms", DEFAULT_BATCH_LINGER_MS)));
+            }
+        }
+
+        Map<String, Object> asyncConfig = (Map<String, Object>) publishConfig.get("async");
+        if (asyncConfig == null) {
+            asyncConfig = Map.of(); // Empty map to use defaults
+        }
+
+        NatsConfig.PublishConfig.AsyncConfig async = new NatsConfig.PublishConfig.AsyncConfig(
+                parseEnum(asyncConfig, "executor", NatsConfig.PublishConfig.AsyncConfig.ExecutorType.class,
+                        DEFAULT_ASYNC_EXECUTOR),
+                parseInt(asyncConfig, "threads", DEFAULT_ASYNC_THREADS),
+                parseInt(asyncConfig, "queue_size", DEFAULT_ASYNC_QUEUE_SIZE),
+                parseLong(asyncConfig, "ack_timeout_ms", DEFAULT_ASYNC_ACK_TIMEOUT_MS));
+
+        List<NatsConfig.PublishConfig.PublishQuota> quotas = new ArrayList<>();
+        Object quotasObj = publishConfig.get("quotas");
+        if (quotasObj instanceof List) {
+            for (Object quotaObj : (List<Object>) quotasObj) {
+                if (!(quotaObj instanceof Map)) {
+                    throw new NatsException.ConfigurationException("Invalid publish quota: " + quotaObj);
+                }
+                Map<String, Object> quota = (Map<String, Object>) quotaObj;
+                String plugin = parseString(quota, "plugin", null);
+                if (plugin == null) {
+                    throw new NatsException.ConfigurationException("Publish quota without 'plugin': " + quota);
+                }
+
+                quotas.add(new NatsConfig.PublishConfig.PublishQuota(plugin,
+                        parseLong(quota, "messages_per_second", DEFAULT_QUOTA_MESSAGES_PER_SECOND),
+                        parseLong(quota, "bytes_per_second", DEFAULT_QUOTA_BYTES_PER_SECOND),
+                        parseEnum(quota, "policy", NatsConfig.PublishConfig.PublishQuota.OverLimitPolicy.class,
+                                DEFAULT_QUOTA_POLICY),
+                        parseLong(quota, "max_delay_ms", DEFAULT_QUOTA_MAX_DELAY_MS)));
+            }
+        }
+
+        List<NatsConfig.PublishConfig.Lane> lanes = new ArrayList<>();
+        Object lanesObj = publishConfig.get("lanes");
+        if (lanesObj instanceof List) {
+            for (Object laneObj : (List<Object>) lanesObj) {
+                if (!(laneObj instanceof Map)) {
+                    throw new NatsException.ConfigurationException("Invalid publish lane: " + laneObj);
+                }
+                Map<String, Object> lane = (Map<String, Object>) laneObj;
+                String name = parseString(lane, "name", null);
+                Object subjectsObj = lane.get("subjects");
+                if (name == null || !(subjectsObj instanceof List)) {
+                    throw new NatsException.ConfigurationException(
+                            "Publish lane without 'name' or 'subjects': " + lane);
+                }
+
+                List<String> subjects = new ArrayList<>();
+                for (Object subject : (List<Object>) subjectsObj) {
+                    subjects.add(String.valueOf(subject));
+                }
+                lanes.add(new NatsConfig.PublishConfig.Lane(name, subjects));
+            }
+        }
+
+        logger.debug("Publish configuration: {} batching rules, async executor={}, {} quotas, {} lanes",
+                batching.size(), async.getExecutor(), quotas.size(), lanes.size());
+
+        return NatsConfig.PublishConfig.builder()
+                .batching(batching)
+                .async(async)
+                .quotas(quotas)
+                .lanes(lanes)
+                .build();
+    }
+
+    private static <E extends Enum<E>> E parseEnum(@NotNull Map<String, Object> config, @NotNull String key,
+            @NotNull Class<E> type, E defaultValue) {
+        Object value = config.get(key);
+        if (!(value instanceof String)) {
+            return defaultValue;
+        }
+
+        try {
+            return Enum.valueOf(type, ((String) value).trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new NatsException.ConfigurationException("Invalid value for '" + key + "': " + value);
+        }
+    }
+
     private static String parseString(@NotNull Map<String, Object> config, @NotNull String key, String defaultValue) {
         Object value = config.get(key);
         return value instanceof String ? (String) value : defaultValue;
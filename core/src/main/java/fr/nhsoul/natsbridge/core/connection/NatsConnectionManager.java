@@ -3,8 +3,6 @@ package fr.nhsoul.natsbridge.core.connection;
 import fr.nhsoul.natsbridge.common.config.NatsConfig;
 import fr.nhsoul.natsbridge.common.exception.NatsException;
 import fr.nhsoul.natsbridge.common.logger.NatsLogger;
-import fr.nhsoul.natsbridge.core.DefaultSlf4jLogger;
-import fr.nhsoul.natsbridge.core.NatsBridge;
 import io.nats.client.Connection;
 import io.nats.client.ConnectionListener;
 import io.nats.client.Nats;
@@ -14,84 +12,145 @@ import org.jetbrains.annotations.Nullable;
 
 import javax.net.ssl.SSLContext;
 import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 
 /**
  * Simplified NATS connection manager.
  * Delegates connection and reconnection management to the native NATS library.
+ * <p>
+ * Besides the main connection, which serves subscriptions, requests and every
+ * other publication, each configured publish lane gets its own connection, so the
+ * messages of a lane never wait in the outbound buffer or the socket of another.
  */
 public class NatsConnectionManager {
 
-    private NatsLogger getLogger() {
-        NatsBridge bridge = NatsBridge.getInstance();
-        return bridge != null ? bridge.getLogger() : new DefaultSlf4jLogger(NatsConnectionManager.class);
-    }
-
     private final NatsConfig config;
-    private Connection connection;
+    private final List<NatsConfig.PublishConfig.Lane> lanes;
+    private final NatsLogger logger;
+    private volatile Connection connection;
+    // Replaced as a whole once every lane is connected
+    private volatile Map<String, Connection> laneConnections = Map.of();
 
-    public NatsConnectionManager(@NotNull NatsConfig config) {
+    public NatsConnectionManager(@NotNull NatsConfig config, @NotNull NatsLogger logger) {
         this.config = config;
+        this.lanes = config.getPublish().getLanes();
+        this.logger = logger;
     }
 
     /**
-     * Establishes the NATS connection synchronously.
-     * Reconnection is handled automatically by the NATS library.
+     * Establishes the NATS connections (main and publish lanes) synchronously.
+     * Reconnection is handled automatically by the NATS library. Connections left by
+     * a previous call (e.g. closed after running out of reconnects) are closed first,
+     * and if any connection fails, the ones already opened are closed, so no
+     * connection is left behind.
      */
-    public void connect() {
+    public synchronized void connect() {
         if (isConnected()) {
             return;
         }
+        disconnect();
 
+        Connection main = null;
+        Map<String, Connection> connections = new LinkedHashMap<>();
         try {
-            getLogger().info("Connecting to NATS servers: {}", config.getServers());
-
-            Options.Builder optionsBuilder = new Options.Builder()
-                    .servers(config.getServers().toArray(new String[0]))
-                    .maxReconnects(config.getReconnect().getMaxReconnects())
-                    .reconnectWait(Duration.ofMillis(config.getReconnect().getReconnectWaitMs()))
-                    .connectionTimeout(Duration.ofMillis(config.getReconnect().getConnectionTimeoutMs()))
-                    .connectionListener((conn, type) -> {
-                        if (type == ConnectionListener.Events.CONNECTED) {
-                            getLogger().info("NATS Connected to {}:{}", conn.getServerInfo().getHost(),
-                                    conn.getServerInfo().getPort());
-                        } else if (type == ConnectionListener.Events.DISCONNECTED) {
-                            getLogger().warn("NATS Disconnected");
-                        } else if (type == ConnectionListener.Events.RECONNECTED) {
-                            getLogger().info("NATS Reconnected to {}:{}", conn.getServerInfo().getHost(),
-                                    conn.getServerInfo().getPort());
-                        } else if (type == ConnectionListener.Events.CLOSED) {
-                            getLogger().info("NATS Connection Closed");
-                        }
-                    });
-
-            setupAuthentication(optionsBuilder);
-            setupTls(optionsBuilder);
-
-            this.connection = Nats.connect(optionsBuilder.build());
+            logger.info("Connecting to NATS servers: {}", config.getServers());
+
+            main = Nats.connect(buildOptions(null));
             // Nats.connect is blocking until connected or timeout
 
+            for (NatsConfig.PublishConfig.Lane lane : lanes) {
+                connections.put(lane.getName(), Nats.connect(buildOptions(lane.getName())));
+                logger.info("Publish lane {} connected for subjects {}", lane.getName(), lane.getSubjects());
+            }
+
         } catch (Exception e) {
+            for (Map.Entry<String, Connection> lane : connections.entrySet()) {
+                close(lane.getValue(), "publish lane " + lane.getKey());
+            }
+            close(main, "NATS connection");
             throw new NatsException.ConnectionException("Failed to connect to NATS", e);
         }
+
+        this.connection = main;
+        this.laneConnections = connections;
     }
 
-    public void disconnect() {
-        if (connection != null && connection.getStatus() != Connection.Status.CLOSED) {
-            try {
-                getLogger().info("Closing NATS connection...");
-                connection.close();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
+    public synchronized void disconnect() {
+        for (Map.Entry<String, Connection> lane : laneConnections.entrySet()) {
+            close(lane.getValue(), "publish lane " + lane.getKey());
         }
+        close(connection, "NATS connection");
+        this.laneConnections = Map.of();
+        this.connection = null;
     }
 
+    /**
+     * Gets the main connection.
+     */
     @Nullable
     public Connection getConnection() {
         return connection;
     }
 
+    /**
+     * Gets the connection publishing a subject: the one of the first lane matching
+     * it, or the main connection.
+     *
+     * @param subject the concrete subject to publish on
+     */
+    @Nullable
+    public Connection getConnection(@NotNull String subject) {
+        return getLaneConnection(getLane(subject));
+    }
+
+    /**
+     * Gets the name of the lane publishing a subject.
+     *
+     * @param subject the concrete subject to publish on
+     * @return the lane name, or {@link NatsConfig.PublishConfig.Lane#DEFAULT} for the main connection
+     */
+    @NotNull
+    public String getLane(@NotNull String subject) {
+        for (int i = 0, n = lanes.size(); i < n; i++) {
+            NatsConfig.PublishConfig.Lane lane = lanes.get(i);
+            if (lane.matches(subject)) {
+                return lane.getName();
+            }
+        }
+        return NatsConfig.PublishConfig.Lane.DEFAULT;
+    }
+
+    /**
+     * Gets the connection of a lane.
+     *
+     * @param lane the lane name, or {@link NatsConfig.PublishConfig.Lane#DEFAULT} for the main connection
+     * @return the connection, or null if not connected
+     */
+    @Nullable
+    public Connection getLaneConnection(@NotNull String lane) {
+        return lane.equals(NatsConfig.PublishConfig.Lane.DEFAULT) ? connection : laneConnections.get(lane);
+    }
+
+    /**
+     * Gets the status of the publish lanes, with their outbound backlog.
+     *
+     * @return one entry per lane, in configuration order
+     */
+    @NotNull
+    public Map<String, String> getLaneStatuses() {
+        Map<String, String> statuses = new LinkedHashMap<>();
+        for (NatsConfig.PublishConfig.Lane lane : lanes) {
+            Connection laneConnection = laneConnections.get(lane.getName());
+            statuses.put(lane.getName(), laneConnection == null ? "DISCONNECTED"
+                    : laneConnection.getStatus() + " (" + laneConnection.getOutgoingPendingMessageCount()
+                            + " msgs, " + laneConnection.getOutgoingPendingBytes() + " bytes pending)");
+        }
+        return statuses;
+    }
+
     public boolean isConnected() {
         return connection != null && connection.getStatus() == Connection.Status.CONNECTED;
     }
@@ -100,6 +159,49 @@ public class NatsConnectionManager {
         return connection != null ? connection.getStatus().toString() : "DISCONNECTED";
     }
 
+    /**
+     * @param lane the publish lane name, or null for the main connection
+     */
+    private Options buildOptions(@Nullable String lane) throws Exception {
+        String label = lane != null ? "NATS lane " + lane : "NATS";
+        Options.Builder optionsBuilder = new Options.Builder()
+                .servers(config.getServers().toArray(new String[0]))
+                .maxReconnects(config.getReconnect().getMaxReconnects())
+                .reconnectWait(Duration.ofMillis(config.getReconnect().getReconnectWaitMs()))
+                .connectionTimeout(Duration.ofMillis(config.getReconnect().getConnectionTimeoutMs()))
+                .connectionListener((conn, type) -> {
+                    if (type == ConnectionListener.Events.CONNECTED) {
+                        logger.info("{} Connected to {}:{}", label, conn.getServerInfo().getHost(),
+                                conn.getServerInfo().getPort());
+                    } else if (type == ConnectionListener.Events.DISCONNECTED) {
+                        logger.warn("{} Disconnected", label);
+                    } else if (type == ConnectionListener.Events.RECONNECTED) {
+                        logger.info("{} Reconnected to {}:{}", label, conn.getServerInfo().getHost(),
+                                conn.getServerInfo().getPort());
+                    } else if (type == ConnectionListener.Events.CLOSED) {
+                        logger.info("{} Connection Closed", label);
+                    }
+                });
+        if (lane != null) {
+            optionsBuilder.connectionName("NatsBridge-" + lane);
+        }
+
+        setupAuthentication(optionsBuilder);
+        setupTls(optionsBuilder);
+        return optionsBuilder.build();
+    }
+
+    private void close(@Nullable Connection conn, String description) {
+        if (conn != null && conn.getStatus() != Connection.Status.CLOSED) {
+            try {
+                logger.info("Closing {}...", description);
+                conn.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
     private void setupAuthentication(Options.Builder builder) {
         NatsConfig.AuthConfig auth = config.getAuth();
         if (auth != null && auth.isEnabled()) {
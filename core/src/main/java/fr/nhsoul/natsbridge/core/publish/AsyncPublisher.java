@@ -0,0 +1,233 @@
+package fr.nhsoul.natsbridge.core.publish;
+
+import fr.nhsoul.natsbridge.common.config.NatsConfig.PublishConfig.AsyncConfig;
+import fr.nhsoul.natsbridge.common.exception.NatsException;
+import fr.nhsoul.natsbridge.common.logger.NatsLogger;
+import fr.nhsoul.natsbridge.core.connection.NatsConnectionManager;
+import io.nats.client.Connection;
+import org.jetbrains.annotations.NotNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Runs asynchronous publications on a dedicated executor and completes their
+ * futures once the server has acknowledged them.
+ * <p>
+ * After a message has been handed to the connection, its future waits for a
+ * flush round trip (PING/PONG) with the server. Flushes are coalesced: a single
+ * round trip acknowledges every message published before it on the same publish
+ * lane. Each lane has its own round trips, so acknowledgements on one lane do not
+ * wait for the backlog of another.
+ * <p>
+ * A publication on a batched subject only reaches the connection when its batch
+ * is flushed. If the batching publisher drops messages of the lane between the
+ * publication and its round trip, the future fails rather than being acknowledged.
+ */
+public class AsyncPublisher {
+
+    private final NatsConnectionManager connectionManager;
+    private final BatchingPublisher batchingPublisher;
+    private final Duration ackTimeout;
+    private final ExecutorService executor;
+    private final NatsLogger logger;
+
+    // By publish lane
+    private final Map<String, LaneAcks> acks = new ConcurrentHashMap<>();
+
+    public AsyncPublisher(@NotNull NatsConnectionManager connectionManager,
+                          @NotNull BatchingPublisher batchingPublisher,
+                          @NotNull AsyncConfig config,
+                          @NotNull NatsLogger logger) {
+        this.connectionManager = connectionManager;
+        this.batchingPublisher = batchingPublisher;
+        this.logger = logger;
+        this.ackTimeout = Duration.ofMillis(config.getAckTimeoutMs());
+        this.executor = createExecutor(config);
+    }
+
+    /**
+     * Futures waiting for a flush round trip on a publish lane.
+     */
+    private static final class LaneAcks {
+        private final String lane;
+        private final Queue<PendingAck> awaitingAck = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean flushing = new AtomicBoolean(false);
+
+        LaneAcks(String lane) {
+            this.lane = lane;
+        }
+    }
+
+    /**
+     * A publication waiting for its acknowledgement.
+     */
+    private static final class PendingAck {
+        private final CompletableFuture<Void> future;
+        // Batched messages dropped on the lane before the publication, -1 if the subject is not batched
+        private final long droppedBefore;
+
+        PendingAck(CompletableFuture<Void> future, long droppedBefore) {
+            this.future = future;
+            this.droppedBefore = droppedBefore;
+        }
+    }
+
+    /**
+     * Runs a publication on the publish executor.
+     *
+     * @param subject     the subject of the publication, selecting its publish lane
+     * @param publication the synchronous publication to run
+     * @return a future completing once the server acknowledged the message
+     */
+    @NotNull
+    public CompletableFuture<Void> submit(@NotNull String subject, @NotNull Runnable publication) {
+        LaneAcks laneAcks = acks.computeIfAbsent(connectionManager.getLane(subject), LaneAcks::new);
+        boolean batched = batchingPublisher.isBatched(subject);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                long droppedBefore = batched ? batchingPublisher.getDroppedCount(laneAcks.lane) : -1;
+                try {
+                    publication.run();
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                    return;
+                }
+                awaitAck(laneAcks, new PendingAck(future, droppedBefore));
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(
+                    new NatsException.PublishException("Async publish queue is full or shut down", e));
+        }
+        return future;
+    }
+
+    /**
+     * Gets the executor running the publications, for publication work that must
+     * leave the calling thread. It rejects tasks once its queue is full or after
+     * {@link #shutdown()}.
+     */
+    @NotNull
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Stops accepting publications and waits briefly for the pending ones.
+     */
+    public void shutdown() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(ackTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        for (LaneAcks laneAcks : acks.values()) {
+            PendingAck pending;
+            while ((pending = laneAcks.awaitingAck.poll()) != null) {
+                pending.future.completeExceptionally(
+                        new NatsException.PublishException("NatsBridge shut down before ack"));
+            }
+        }
+    }
+
+    private void awaitAck(LaneAcks laneAcks, PendingAck pending) {
+        laneAcks.awaitingAck.add(pending);
+        if (laneAcks.flushing.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> flushLoop(laneAcks));
+            } catch (RejectedExecutionException e) {
+                // Queue full: flush from the current publish thread instead
+                flushLoop(laneAcks);
+            }
+        }
+    }
+
+    private void flushLoop(LaneAcks laneAcks) {
+        do {
+            List<PendingAck> acknowledged = new ArrayList<>();
+            PendingAck pending;
+            while ((pending = laneAcks.awaitingAck.poll()) != null) {
+                acknowledged.add(pending);
+            }
+
+            if (!acknowledged.isEmpty()) {
+                flushAndComplete(laneAcks.lane, acknowledged);
+            }
+            laneAcks.flushing.set(false);
+            // Futures queued while flushing need another round trip
+        } while (!laneAcks.awaitingAck.isEmpty() && laneAcks.flushing.compareAndSet(false, true));
+    }
+
+    private void flushAndComplete(String lane, List<PendingAck> acknowledged) {
+        try {
+            Connection connection = connectionManager.getLaneConnection(lane);
+            if (connection == null) {
+                throw new IllegalStateException("NATS connection is not available");
+            }
+
+            // Batched messages of the lane must reach its connection before the round trip
+            batchingPublisher.flushLane(lane);
+            connection.flush(ackTimeout);
+
+            // Batched messages dropped since a publication may include its own
+            long dropped = batchingPublisher.getDroppedCount(lane);
+            for (PendingAck pending : acknowledged) {
+                if (pending.droppedBefore >= 0 && dropped > pending.droppedBefore) {
+                    pending.future.completeExceptionally(new NatsException.PublishException(
+                            "Batched messages were dropped on lane '" + lane + "' before the ack"));
+                } else {
+                    pending.future.complete(null);
+                }
+            }
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            logger.error("Failed to get flush acknowledgement for {} messages", e, acknowledged.size());
+            NatsException.PublishException failure =
+                    new NatsException.PublishException("Server did not acknowledge the flush", e);
+            for (PendingAck pending : acknowledged) {
+                pending.future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private static ExecutorService createExecutor(AsyncConfig config) {
+        if (config.getExecutor() == AsyncConfig.ExecutorType.VIRTUAL) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("NatsBridge-publish-", 0).factory());
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(config.getThreads(), config.getThreads(),
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueSize()),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "NatsBridge-publish-" + counter.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+}
@@ -0,0 +1,348 @@
+package fr.nhsoul.natsbridge.core.publish;
+
+import fr.nhsoul.natsbridge.common.config.NatsConfig.PublishConfig.BatchingRule;
+import fr.nhsoul.natsbridge.common.logger.NatsLogger;
+import fr.nhsoul.natsbridge.core.connection.NatsConnectionManager;
+import io.nats.client.Connection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Collects messages published on batched subjects and hands them to the
+ * connection in batches, each batch ending with a single buffer flush.
+ * <p>
+ * Every batching rule owns a set of striped buffers, selected by the publishing
+ * thread, so concurrent publishers rarely contend. A buffer is flushed when its
+ * message count or byte size threshold is reached, or by a background task once
+ * its oldest message has waited for the rule's linger time.
+ * <p>
+ * Messages that cannot be handed to their lane connection, because it is not
+ * available or the publication failed, are dropped and counted per lane.
+ */
+public class BatchingPublisher {
+
+    private final NatsConnectionManager connectionManager;
+    private final RuleBuffers[] rules;
+    private final ScheduledExecutorService lingerScheduler;
+    private final NatsLogger logger;
+
+    // By publish lane
+    private final Map<String, LongAdder> dropped = new ConcurrentHashMap<>();
+
+    public BatchingPublisher(@NotNull NatsConnectionManager connectionManager, @NotNull List<BatchingRule> rules,
+                             @NotNull NatsLogger logger) {
+        this.connectionManager = connectionManager;
+        this.logger = logger;
+
+        // Longest prefix first, so the most specific rule wins
+        List<BatchingRule> sorted = new ArrayList<>(rules);
+        sorted.sort(Comparator.comparingInt((BatchingRule rule) -> rule.getPrefix().length()).reversed());
+
+        int stripes = stripeCount();
+        this.rules = new RuleBuffers[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            this.rules[i] = new RuleBuffers(sorted.get(i), stripes);
+        }
+
+        if (this.rules.length > 0) {
+            long period = sorted.stream().mapToLong(BatchingRule::getLingerMs).min().orElse(1);
+            this.lingerScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "NatsBridge-batch-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.lingerScheduler.scheduleAtFixedRate(this::flushExpired, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.lingerScheduler = null;
+        }
+    }
+
+    /**
+     * Queues a message if its subject matches a batching rule.
+     *
+     * @param subject the NATS subject
+     * @param data    the message payload (can be null)
+     * @return {@code true} if the message was queued, {@code false} if it must be
+     *         published directly
+     */
+    public boolean offer(@NotNull String subject, @Nullable byte[] data) {
+        RuleBuffers buffers = find(subject);
+        if (buffers == null) {
+            return false;
+        }
+
+        buffers.stripe().add(subject, data);
+        return true;
+    }
+
+    /**
+     * Checks whether a subject is published through a batching rule.
+     */
+    public boolean isBatched(@NotNull String subject) {
+        return find(subject) != null;
+    }
+
+    /**
+     * Flushes every pending batch.
+     */
+    public void flushAll() {
+        for (RuleBuffers buffers : rules) {
+            for (Stripe stripe : buffers.stripes) {
+                stripe.flush();
+            }
+        }
+    }
+
+    /**
+     * Flushes the pending messages published on a lane, leaving the messages of
+     * the other lanes to their own thresholds.
+     *
+     * @param lane the lane name, or {@link fr.nhsoul.natsbridge.common.config.NatsConfig.PublishConfig.Lane#DEFAULT}
+     *             for the main connection
+     */
+    public void flushLane(@NotNull String lane) {
+        for (RuleBuffers buffers : rules) {
+            for (Stripe stripe : buffers.stripes) {
+                stripe.flushLane(lane);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of batched messages dropped since startup, on every lane.
+     */
+    public long getDroppedCount() {
+        long total = 0;
+        for (LongAdder count : dropped.values()) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    /**
+     * Gets the number of batched messages dropped since startup on a lane.
+     *
+     * @param lane the lane name, or {@link fr.nhsoul.natsbridge.common.config.NatsConfig.PublishConfig.Lane#DEFAULT}
+     *             for the main connection
+     */
+    public long getDroppedCount(@NotNull String lane) {
+        LongAdder count = dropped.get(lane);
+        return count != null ? count.sum() : 0;
+    }
+
+    /**
+     * Stops the linger task and flushes what is still pending.
+     */
+    public void shutdown() {
+        if (lingerScheduler != null) {
+            lingerScheduler.shutdownNow();
+        }
+        flushAll();
+    }
+
+    @Nullable
+    private RuleBuffers find(@NotNull String subject) {
+        for (RuleBuffers buffers : rules) {
+            if (buffers.rule.matches(subject)) {
+                return buffers;
+            }
+        }
+        return null;
+    }
+
+    private void flushExpired() {
+        long now = System.nanoTime();
+        for (RuleBuffers buffers : rules) {
+            for (Stripe stripe : buffers.stripes) {
+                stripe.flushIfOlderThan(now);
+            }
+        }
+    }
+
+    private static int stripeCount() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return Integer.highestOneBit(Math.max(1, processors - 1) << 1);
+    }
+
+    private final class RuleBuffers {
+        final BatchingRule rule;
+        final Stripe[] stripes;
+
+        RuleBuffers(BatchingRule rule, int stripeCount) {
+            this.rule = rule;
+            this.stripes = new Stripe[stripeCount];
+            for (int i = 0; i < stripeCount; i++) {
+                stripes[i] = new Stripe(rule);
+            }
+        }
+
+        Stripe stripe() {
+            return stripes[(int) Thread.currentThread().threadId() & (stripes.length - 1)];
+        }
+    }
+
+    /**
+     * Messages of a batch published on the same lane.
+     */
+    private static final class LaneBatch {
+        final Connection connection;
+        int published;
+        int dropped;
+        Exception failure;
+
+        LaneBatch(@Nullable Connection connection) {
+            this.connection = connection;
+        }
+    }
+
+    private final class Stripe {
+        private final int maxMessages;
+        private final int maxBytes;
+        private final long lingerNanos;
+
+        private final List<String> subjects;
+        private final List<byte[]> payloads;
+        private int bytes;
+        private long firstEnqueuedNanos;
+
+        Stripe(BatchingRule rule) {
+            this.maxMessages = rule.getMaxMessages();
+            this.maxBytes = rule.getMaxBytes();
+            this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(rule.getLingerMs());
+            this.subjects = new ArrayList<>(maxMessages);
+            this.payloads = new ArrayList<>(maxMessages);
+        }
+
+        synchronized void add(String subject, byte[] data) {
+            if (subjects.isEmpty()) {
+                firstEnqueuedNanos = System.nanoTime();
+            }
+            subjects.add(subject);
+            payloads.add(data);
+            bytes += data != null ? data.length : 0;
+
+            if (subjects.size() >= maxMessages || bytes >= maxBytes) {
+                drain();
+            }
+        }
+
+        synchronized void flushIfOlderThan(long now) {
+            if (!subjects.isEmpty() && now - firstEnqueuedNanos >= lingerNanos) {
+                drain();
+            }
+        }
+
+        synchronized void flush() {
+            if (!subjects.isEmpty()) {
+                drain();
+            }
+        }
+
+        synchronized void flushLane(String lane) {
+            int count = subjects.size();
+            if (count == 0) {
+                return;
+            }
+
+            // Takes the messages of the lane out, keeping the others in order
+            List<String> laneSubjects = new ArrayList<>();
+            List<byte[]> lanePayloads = new ArrayList<>();
+            int laneBytes = 0;
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                String subject = subjects.get(i);
+                byte[] data = payloads.get(i);
+                if (lane.equals(connectionManager.getLane(subject))) {
+                    laneSubjects.add(subject);
+                    lanePayloads.add(data);
+                    laneBytes += data != null ? data.length : 0;
+                } else {
+                    subjects.set(kept, subject);
+                    payloads.set(kept, data);
+                    kept++;
+                }
+            }
+            subjects.subList(kept, count).clear();
+            payloads.subList(kept, count).clear();
+            bytes -= laneBytes;
+
+            if (!laneSubjects.isEmpty()) {
+                publish(laneSubjects, lanePayloads, laneBytes);
+            }
+        }
+
+        // Publishing under the stripe lock keeps the per-thread publication order
+        private void drain() {
+            try {
+                publish(subjects, payloads, bytes);
+            } finally {
+                subjects.clear();
+                payloads.clear();
+                bytes = 0;
+            }
+        }
+
+        private void publish(List<String> batchSubjects, List<byte[]> batchPayloads, int batchBytes) {
+            int count = batchSubjects.size();
+
+            // A batching rule may span several publish lanes, each flushed once
+            Map<String, LaneBatch> lanes = new LinkedHashMap<>(2);
+            for (int i = 0; i < count; i++) {
+                String subject = batchSubjects.get(i);
+                LaneBatch batch = lanes.computeIfAbsent(connectionManager.getLane(subject),
+                        lane -> new LaneBatch(connectionManager.getLaneConnection(lane)));
+                if (batch.connection == null) {
+                    batch.dropped++;
+                    continue;
+                }
+                try {
+                    batch.connection.publish(subject, batchPayloads.get(i));
+                    batch.published++;
+                } catch (Exception e) {
+                    batch.dropped++;
+                    batch.failure = e;
+                }
+            }
+
+            for (Map.Entry<String, LaneBatch> entry : lanes.entrySet()) {
+                String lane = entry.getKey();
+                LaneBatch batch = entry.getValue();
+                if (batch.published > 0) {
+                    try {
+                        batch.connection.flushBuffer();
+                    } catch (Exception e) {
+                        batch.dropped += batch.published;
+                        batch.failure = e;
+                    }
+                }
+
+                if (batch.dropped == 0) {
+                    continue;
+                }
+                dropped.computeIfAbsent(lane, key -> new LongAdder()).add(batch.dropped);
+                if (batch.connection == null) {
+                    logger.warn("Dropped {} batched messages on lane '{}': NATS connection is not available",
+                            batch.dropped, lane);
+                } else {
+                    logger.error("Dropped {} batched messages on lane '{}'", batch.failure, batch.dropped, lane);
+                }
+            }
+
+            if (logger.isDebugEnabled()) {
+                logger.debug("Flushed batch of {} messages ({} bytes)", count, batchBytes);
+            }
+        }
+    }
+}
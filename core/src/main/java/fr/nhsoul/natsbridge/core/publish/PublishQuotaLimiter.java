@@ -0,0 +1,258 @@
+package fr.nhsoul.natsbridge.core.publish;
+
+import fr.nhsoul.natsbridge.common.config.NatsConfig.PublishConfig.PublishQuota;
+import fr.nhsoul.natsbridge.common.config.NatsConfig.PublishConfig.PublishQuota.OverLimitPolicy;
+import fr.nhsoul.natsbridge.common.exception.NatsException;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+
+/**
+ * Applies the publish quota of a plugin with two token buckets, one for messages
+ * and one for payload bytes, each refilled continuously at its per-second rate
+ * and holding up to one second of traffic.
+ * <p>
+ * A publication taking tokens runs right away on the calling thread. Otherwise the
+ * policy of the quota applies: the publication is rejected, dropped, or delayed.
+ * Delayed publications borrow tokens ahead of time and run one after the other,
+ * once their tokens are refilled, so they keep their order, and publications made
+ * while some are delayed wait behind them. Their deadlines are kept by a scheduler
+ * shared by the limiters, which hands them to the publish executor to run.
+ */
+public class PublishQuotaLimiter {
+
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final String owner;
+    private final PublishQuota quota;
+    private final long maxDelayNanos;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private double messageTokens;
+    private double byteTokens;
+    private long lastRefillNanos;
+    // Starts the last delayed publication, the next one is chained to it
+    private CompletableFuture<Void> delayedTail = CompletableFuture.completedFuture(null);
+
+    private final LongAdder delayed = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param owner     the owner of the quota, for error messages
+     * @param quota     the quota to apply
+     * @param scheduler the scheduler waiting for the deadlines of the delayed publications
+     * @param executor  the executor running the delayed publications
+     */
+    public PublishQuotaLimiter(@NotNull String owner, @NotNull PublishQuota quota,
+            @NotNull ScheduledExecutorService scheduler, @NotNull Executor executor) {
+        this.owner = owner;
+        this.quota = quota;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(quota.getMaxDelayMs());
+        this.messageTokens = quota.getMessagesPerSecond();
+        this.byteTokens = quota.getBytesPerSecond();
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Runs a publication within the quota.
+     *
+     * @param subject   the subject of the publication, for error messages
+     * @param bytes     the payload size of the publication
+     * @param droppable whether the publication may be dropped (requests cannot, they are rejected instead)
+     * @param publish   the publication, returning its future
+     * @return the future of the publication, completed with null if it was dropped
+     * @throws NatsException.PublishException if the publication is rejected
+     */
+    @NotNull
+    public <T> CompletableFuture<T> submit(@NotNull String subject, int bytes, boolean droppable,
+            @NotNull Supplier<CompletableFuture<T>> publish) {
+        CompletableFuture<T> result;
+
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            refill(now);
+
+            if (delayedTail.isDone() && hasTokens(bytes)) {
+                take(bytes);
+                result = null;
+            } else if (quota.getPolicy() == OverLimitPolicy.DELAY) {
+                long wait = waitNanos(bytes);
+                if (wait > maxDelayNanos) {
+                    rejected.increment();
+                    throw overLimit(subject);
+                }
+
+                // Borrows the tokens, so the next publications wait behind this one
+                take(bytes);
+                long deadline = now + wait;
+                result = new CompletableFuture<>();
+                CompletableFuture<T> delayedResult = result;
+                delayedTail = delayedTail.thenCompose(v -> runAt(deadline, publish, delayedResult));
+                delayed.increment();
+            } else if (quota.getPolicy() == OverLimitPolicy.DROP && droppable) {
+                dropped.increment();
+                return CompletableFuture.completedFuture(null);
+            } else {
+                rejected.increment();
+                throw overLimit(subject);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return result != null ? result : publish.get();
+    }
+
+    @NotNull
+    public PublishQuota getQuota() {
+        return quota;
+    }
+
+    /**
+     * Gets the number of publications postponed by the quota.
+     */
+    public long getDelayedCount() {
+        return delayed.sum();
+    }
+
+    /**
+     * Gets the number of messages discarded by the quota.
+     */
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    /**
+     * Gets the number of publications that failed because of the quota.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "quota " + quota + " (delayed=" + getDelayedCount() + ", dropped=" + getDroppedCount()
+                + ", rejected=" + getRejectedCount() + ")";
+    }
+
+    /**
+     * Hands a delayed publication to the executor once its deadline is reached.
+     *
+     * @return a future completing once the publication ran or could not be handed off
+     */
+    private <T> CompletableFuture<Void> runAt(long deadline, Supplier<CompletableFuture<T>> publish,
+            CompletableFuture<T> result) {
+        CompletableFuture<Void> ran = new CompletableFuture<>();
+        try {
+            scheduler.schedule(() -> {
+                try {
+                    executor.execute(() -> {
+                        try {
+                            runDelayed(publish, result);
+                        } finally {
+                            ran.complete(null);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    result.completeExceptionally(
+                            new NatsException.PublishException("Async publish queue is full or shut down", e));
+                    ran.complete(null);
+                }
+            }, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(new NatsException.PublishException("NatsBridge is shut down", e));
+            ran.complete(null);
+        }
+        return ran;
+    }
+
+    private static <T> void runDelayed(Supplier<CompletableFuture<T>> publish, CompletableFuture<T> result) {
+        try {
+            publish.get().whenComplete((value, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(value);
+                }
+            });
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+        }
+    }
+
+    private NatsException.PublishException overLimit(String subject) {
+        return new NatsException.PublishException("Publish quota of " + owner + " exceeded on subject: " + subject);
+    }
+
+    /**
+     * Must be called with the lock held.
+     */
+    private void refill(long now) {
+        double elapsedSeconds = (now - lastRefillNanos) / NANOS_PER_SECOND;
+        lastRefillNanos = now;
+        if (quota.getMessagesPerSecond() > 0) {
+            messageTokens = Math.min(quota.getMessagesPerSecond(),
+                    messageTokens + elapsedSeconds * quota.getMessagesPerSecond());
+        }
+        if (quota.getBytesPerSecond() > 0) {
+            byteTokens = Math.min(quota.getBytesPerSecond(), byteTokens + elapsedSeconds * quota.getBytesPerSecond());
+        }
+    }
+
+    /**
+     * Must be called with the lock held.
+     */
+    private boolean hasTokens(int bytes) {
+        return (quota.getMessagesPerSecond() == 0 || messageTokens >= 1)
+                && (quota.getBytesPerSecond() == 0 || byteTokens >= byteCost(bytes));
+    }
+
+    /**
+     * Gets the time until the buckets hold the tokens of a publication. Must be
+     * called with the lock held.
+     */
+    private long waitNanos(int bytes) {
+        double seconds = 0;
+        if (quota.getMessagesPerSecond() > 0) {
+            seconds = Math.max(seconds, (1 - messageTokens) / quota.getMessagesPerSecond());
+        }
+        if (quota.getBytesPerSecond() > 0) {
+            seconds = Math.max(seconds, (byteCost(bytes) - byteTokens) / quota.getBytesPerSecond());
+        }
+        return (long) Math.ceil(seconds * NANOS_PER_SECOND);
+    }
+
+    /**
+     * Must be called with the lock held.
+     */
+    private void take(int bytes) {
+        if (quota.getMessagesPerSecond() > 0) {
+            messageTokens -= 1;
+        }
+        if (quota.getBytesPerSecond() > 0) {
+            byteTokens -= bytes;
+        }
+    }
+
+    /**
+     * Gets the byte tokens a publication waits for: a message larger than the
+     * bucket only waits for a full bucket, then leaves it in debt.
+     */
+    private long byteCost(int bytes) {
+        return Math.min(bytes, quota.getBytesPerSecond());
+    }
+}
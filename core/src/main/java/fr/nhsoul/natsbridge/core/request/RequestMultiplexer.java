@@ -0,0 +1,326 @@
+package fr.nhsoul.natsbridge.core.request;
+
+import fr.nhsoul.natsbridge.common.exception.NatsException;
+import fr.nhsoul.natsbridge.common.logger.NatsLogger;
+import io.nats.client.Connection;
+import io.nats.client.Dispatcher;
+import io.nats.client.Message;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+
+/**
+ * Sends requests and routes their replies through a single wildcard inbox
+ * subscription ({@code _INBOX.<id>.*}) instead of one subscription per request.
+ * <p>
+ * Each request gets a reply subject made of the shared inbox prefix and a unique
+ * token, and its pending entry is looked up by that token when a reply comes
+ * back. Scatter-gather requests keep their entry until enough replies arrived.
+ * The inbox is created lazily on the first request and recreated if the
+ * connection changes; the previous inbox is then closed, and the requests still
+ * waiting on it fail, since their replies can no longer arrive.
+ */
+public class RequestMultiplexer {
+
+    // NATS status sent back on the reply subject when nobody listens on the request subject
+    private static final int NO_RESPONDERS_STATUS = 503;
+
+    private final NatsLogger logger;
+    private final Map<String, PendingReply> pending = new ConcurrentHashMap<>();
+    private final AtomicLong tokens = new AtomicLong();
+    // Ends the scatter-gather requests whose quorum was not reached in time
+    private final ScheduledExecutorService gatherScheduler;
+
+    private volatile Inbox inbox;
+
+    public RequestMultiplexer(@NotNull NatsLogger logger) {
+        this.logger = logger;
+        this.gatherScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NatsBridge-gather-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Publishes a request and returns a future completed with the first reply.
+     *
+     * @param connection the connection to publish on
+     * @param subject    the request subject
+     * @param data       the request payload (can be null)
+     * @param timeout    how long to wait for the reply
+     * @return a future completed with the reply payload, or exceptionally with a
+     *         {@link java.util.concurrent.TimeoutException} after the timeout or a
+     *         {@link NatsException.RequestException} if nobody listens on the subject or the
+     *         connection changes before the reply
+     */
+    @NotNull
+    public CompletableFuture<byte[]> request(@NotNull Connection connection, @NotNull String subject,
+                                             @Nullable byte[] data, @NotNull Duration timeout) {
+        SingleReply pendingReply = new SingleReply();
+        pendingReply.future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        send(connection, subject, data, pendingReply);
+        return pendingReply.future;
+    }
+
+    /**
+     * Publishes a request once and collects the replies of every responder.
+     * <p>
+     * The future completes as soon as {@code expectedResponders} replies were
+     * received, or when the timeout elapses with the replies received so far
+     * (possibly none). It never completes with a timeout error.
+     *
+     * @param connection         the connection to publish on
+     * @param subject            the request subject
+     * @param data               the request payload (can be null)
+     * @param expectedResponders the number of replies to wait for (quorum)
+     * @param timeout            how long to wait for the replies
+     * @param onReply            called with each reply as it arrives, on the inbox
+     *                           dispatcher thread (can be null)
+     * @return a future completed with the received replies, in arrival order
+     */
+    @NotNull
+    public CompletableFuture<List<byte[]>> scatterGather(@NotNull Connection connection, @NotNull String subject,
+                                                         @Nullable byte[] data, int expectedResponders,
+                                                         @NotNull Duration timeout,
+                                                         @Nullable Consumer<byte[]> onReply) {
+        if (expectedResponders < 1) {
+            throw new IllegalArgumentException("expectedResponders must be at least 1");
+        }
+
+        Gather gather = new Gather(expectedResponders, onReply);
+        ScheduledFuture<?> deadline = gatherScheduler.schedule(gather::finish, timeout.toNanos(), TimeUnit.NANOSECONDS);
+        gather.future.whenComplete((replies, error) -> deadline.cancel(false));
+        send(connection, subject, data, gather);
+        return gather.future;
+    }
+
+    /**
+     * Gets the number of requests waiting for a reply.
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Closes the inbox and fails the requests still waiting for a reply.
+     */
+    public synchronized void shutdown() {
+        gatherScheduler.shutdownNow();
+
+        Inbox current = inbox;
+        inbox = null;
+        if (current != null) {
+            current.close();
+        }
+
+        NatsException.RequestException failure =
+                new NatsException.RequestException("NatsBridge shut down before the reply");
+        for (PendingReply pendingReply : pending.values()) {
+            pendingReply.future().completeExceptionally(failure);
+        }
+    }
+
+    private Inbox inbox(Connection connection) {
+        Inbox current = inbox;
+        if (current != null && current.connection == connection) {
+            return current;
+        }
+
+        synchronized (this) {
+            current = inbox;
+            if (current == null || current.connection != connection) {
+                Inbox previous = current;
+                current = new Inbox(connection);
+                inbox = current;
+                logger.debug("Request inbox subscribed on {}*", current.prefix);
+                if (previous != null) {
+                    retire(previous);
+                }
+            }
+            return current;
+        }
+    }
+
+    /**
+     * Closes an inbox replaced after a connection change and fails the requests
+     * waiting on it.
+     */
+    private void retire(Inbox previous) {
+        previous.close();
+
+        NatsException.RequestException failure = new NatsException.RequestException(
+                "Connection changed before the reply on inbox " + previous.prefix);
+        for (PendingReply pendingReply : pending.values()) {
+            if (pendingReply.inbox == previous) {
+                pendingReply.future().completeExceptionally(failure);
+            }
+        }
+    }
+
+    private void send(Connection connection, String subject, @Nullable byte[] data, PendingReply pendingReply) {
+        Inbox current = inbox(connection);
+        String token = Long.toString(tokens.incrementAndGet(), Character.MAX_RADIX);
+
+        pendingReply.inbox = current;
+        pending.put(token, pendingReply);
+        pendingReply.future().whenComplete((reply, error) -> pending.remove(token));
+        if (current.closed) {
+            // Retired while the request was registered: the retiring thread may have missed it
+            pendingReply.future().completeExceptionally(new NatsException.RequestException(
+                    "Connection changed before the request on inbox " + current.prefix));
+            return;
+        }
+
+        try {
+            connection.publish(subject, current.prefix + token, data);
+        } catch (Exception e) {
+            pendingReply.future().completeExceptionally(
+                    new NatsException.PublishException("Failed to publish request to subject: " + subject, e));
+        }
+    }
+
+    private void onReply(Message message, int prefixLength) {
+        String token = message.getSubject().substring(prefixLength);
+        PendingReply pendingReply = pending.get(token);
+        if (pendingReply == null) {
+            // Late reply to a request that already timed out, or an extra responder
+            return;
+        }
+
+        if (message.isStatusMessage()) {
+            if (message.getStatus().getCode() == NO_RESPONDERS_STATUS) {
+                pendingReply.noResponders(message.getSubject());
+            }
+            return;
+        }
+        pendingReply.reply(message.getData());
+    }
+
+    /**
+     * A request waiting for its reply or replies.
+     */
+    private abstract static class PendingReply {
+        // The inbox the reply is expected on
+        volatile Inbox inbox;
+
+        abstract CompletableFuture<?> future();
+
+        abstract void reply(byte[] data);
+
+        abstract void noResponders(String inbox);
+    }
+
+    private static final class SingleReply extends PendingReply {
+        final CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+        @Override
+        CompletableFuture<?> future() {
+            return future;
+        }
+
+        @Override
+        void reply(byte[] data) {
+            future.complete(data);
+        }
+
+        @Override
+        void noResponders(String inbox) {
+            future.completeExceptionally(new NatsException.RequestException(
+                    "No responders for request on inbox " + inbox));
+        }
+    }
+
+    private final class Gather extends PendingReply {
+        final CompletableFuture<List<byte[]>> future = new CompletableFuture<>();
+        private final int expected;
+        private final Consumer<byte[]> onReply;
+        private final List<byte[]> replies;
+
+        Gather(int expected, @Nullable Consumer<byte[]> onReply) {
+            this.expected = expected;
+            this.onReply = onReply;
+            this.replies = new ArrayList<>(Math.min(expected, 64));
+        }
+
+        @Override
+        CompletableFuture<?> future() {
+            return future;
+        }
+
+        @Override
+        void reply(byte[] data) {
+            boolean complete;
+            synchronized (this) {
+                if (future.isDone()) {
+                    return;
+                }
+                replies.add(data);
+                complete = replies.size() >= expected;
+            }
+
+            if (onReply != null) {
+                try {
+                    onReply.accept(data);
+                } catch (Exception e) {
+                    logger.error("Error processing scatter-gather reply", e);
+                }
+            }
+            if (complete) {
+                finish();
+            }
+        }
+
+        @Override
+        void noResponders(String inbox) {
+            // Only sent when nobody at all is subscribed: nothing more will come
+            finish();
+        }
+
+        synchronized void finish() {
+            if (!future.isDone()) {
+                future.complete(List.copyOf(replies));
+            }
+        }
+    }
+
+    private final class Inbox {
+        final Connection connection;
+        final String prefix;
+        final Dispatcher dispatcher;
+        volatile boolean closed;
+
+        Inbox(Connection connection) {
+            this.connection = connection;
+            this.prefix = connection.createInbox() + ".";
+            int prefixLength = prefix.length();
+            // Dedicated dispatcher: replies are not queued behind subscription handlers
+            this.dispatcher = connection.createDispatcher(message -> onReply(message, prefixLength));
+            this.dispatcher.subscribe(prefix + "*");
+        }
+
+        void close() {
+            closed = true;
+            if (dispatcher.isActive()) {
+                try {
+                    connection.closeDispatcher(dispatcher);
+                } catch (Exception e) {
+                    logger.error("Failed to close the request inbox {}*", e, prefix);
+                }
+            }
+        }
+    }
+}
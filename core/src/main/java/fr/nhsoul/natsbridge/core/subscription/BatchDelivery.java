@@ -0,0 +1,195 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.common.logger.NatsLogger;
+import io.nats.client.Message;
+import io.nats.client.MessageHandler;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+
+/**
+ * Accumulates the messages of a subscription into batches handed to its consumer.
+ * <p>
+ * The dispatcher only appends the received payloads to the current batch, which is
+ * closed once it holds {@code maxBatch} messages or its first message has waited
+ * for {@code maxWait}. Closed batches are delivered in order by a single drain task
+ * at a time.
+ */
+final class BatchDelivery implements MessageHandler, Runnable {
+
+    private final String subject;
+    private final int maxBatch;
+    private final long maxWaitNanos;
+    private final Consumer<List<byte[]>> consumer;
+    private final Executor executor;
+    private final NatsLogger logger;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<byte[]> current;
+    // Identifies the current batch, so the timer of a batch closed when full does not close the next one
+    private long batchId;
+    private final ArrayDeque<List<byte[]>> closedBatches = new ArrayDeque<>();
+    private int closedMessages;
+    private boolean draining;
+    private boolean closed;
+
+    BatchDelivery(@NotNull String subject, int maxBatch, long maxWaitNanos,
+                  @NotNull Consumer<List<byte[]>> consumer, @NotNull Executor executor, @NotNull NatsLogger logger) {
+        this.subject = subject;
+        this.maxBatch = maxBatch;
+        this.maxWaitNanos = maxWaitNanos;
+        this.consumer = consumer;
+        this.executor = executor;
+        this.logger = logger;
+        this.current = new ArrayList<>(maxBatch);
+    }
+
+    /**
+     * Appends a message to the current batch. Called by the dispatcher thread.
+     */
+    @Override
+    public void onMessage(Message msg) {
+        boolean schedule = false;
+        long expiringBatch = -1;
+
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+
+            current.add(msg.getData());
+            if (current.size() >= maxBatch) {
+                schedule = closeCurrent();
+            } else if (current.size() == 1) {
+                expiringBatch = batchId;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (expiringBatch >= 0) {
+            long id = expiringBatch;
+            CompletableFuture.delayedExecutor(maxWaitNanos, TimeUnit.NANOSECONDS, executor)
+                    .execute(() -> expire(id));
+        }
+        if (schedule) {
+            drain();
+        }
+    }
+
+    /**
+     * Delivers the closed batches until none is left.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            List<byte[]> batch;
+            lock.lock();
+            try {
+                batch = closedBatches.pollFirst();
+                if (batch == null) {
+                    draining = false;
+                    return;
+                }
+                closedMessages -= batch.size();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                consumer.accept(batch);
+            } catch (Exception e) {
+                logger.error("Error processing NATS message batch for subject {}", e, subject);
+            }
+        }
+    }
+
+    /**
+     * Discards the messages not delivered yet. Messages received afterwards are ignored.
+     *
+     * @return the number of discarded messages
+     */
+    int close() {
+        lock.lock();
+        try {
+            closed = true;
+            int discarded = current.size() + closedMessages;
+            current = new ArrayList<>(0);
+            closedBatches.clear();
+            closedMessages = 0;
+            return discarded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gets the number of received messages not delivered yet.
+     */
+    int getBufferedMessages() {
+        lock.lock();
+        try {
+            return current.size() + closedMessages;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void expire(long id) {
+        boolean schedule = false;
+        lock.lock();
+        try {
+            if (!closed && id == batchId && !current.isEmpty()) {
+                schedule = closeCurrent();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (schedule) {
+            drain();
+        }
+    }
+
+    /**
+     * Closes the current batch. Must be called with the lock held.
+     *
+     * @return true if a drain task must be started
+     */
+    private boolean closeCurrent() {
+        closedBatches.addLast(current);
+        closedMessages += current.size();
+        current = new ArrayList<>(maxBatch);
+        batchId++;
+
+        if (draining) {
+            return false;
+        }
+        draining = true;
+        return true;
+    }
+
+    private void drain() {
+        try {
+            executor.execute(this);
+        } catch (RejectedExecutionException e) {
+            // Shutting down, the batches are discarded with the subscription
+            lock.lock();
+            try {
+                draining = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.common.config.NatsConfig;
+import fr.nhsoul.natsbridge.common.logger.NatsLogger;
+import io.nats.client.Message;
+import io.nats.client.MessageHandler;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Bounded queue between the dispatcher of a subscription and its consumer.
+ * <p>
+ * The dispatcher only appends the received messages, applying the overflow policy
+ * once the pending limit is reached, while a single drain task at a time runs the
+ * consumer on the given executor, so messages are still consumed in order.
+ */
+final class BoundedDelivery implements MessageHandler, Runnable {
+
+    private final String subject;
+    private final NatsConfig.SubscriptionConfig.PendingLimit limit;
+    private final MessageHandler handler;
+    private final Executor executor;
+    private final NatsLogger logger;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    // COALESCE only: the pending message of each subject
+    private final Map<String, Pending> bySubject = new HashMap<>();
+    private long queuedBytes;
+    private boolean draining;
+    private boolean closed;
+
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    private static final class Pending {
+        Message message;
+        int size;
+
+        Pending(Message message, int size) {
+            this.message = message;
+            this.size = size;
+        }
+    }
+
+    BoundedDelivery(@NotNull String subject, @NotNull NatsConfig.SubscriptionConfig.PendingLimit limit,
+                    @NotNull MessageHandler handler, @NotNull Executor executor, @NotNull NatsLogger logger) {
+        this.subject = subject;
+        this.limit = limit;
+        this.handler = handler;
+        this.executor = executor;
+        this.logger = logger;
+    }
+
+    /**
+     * Queues a message. Called by the dispatcher thread.
+     */
+    @Override
+    public void onMessage(Message msg) {
+        byte[] data = msg.getData();
+        int size = data != null ? data.length : 0;
+        boolean schedule = false;
+
+        lock.lock();
+        try {
+            if (closed) {
+                dropped.increment();
+                return;
+            }
+
+            if (isFull(size)) {
+                switch (limit.getOverflow()) {
+                    case DROP_NEWEST:
+                        dropped.increment();
+                        return;
+                    case BLOCK:
+                        while (!closed && isFull(size)) {
+                            notFull.await();
+                        }
+                        if (closed) {
+                            dropped.increment();
+                            return;
+                        }
+                        break;
+                    case COALESCE:
+                        Pending pending = bySubject.get(msg.getSubject());
+                        if (pending != null) {
+                            // Keep its place in the queue, the consumer only sees the latest payload
+                            queuedBytes += size - pending.size;
+                            pending.message = msg;
+                            pending.size = size;
+                            coalesced.increment();
+                            while (queue.size() > 1 && limit.getMaxBytes() > 0 && queuedBytes > limit.getMaxBytes()) {
+                                removeOldest();
+                            }
+                            return;
+                        }
+                        // Fall through: no pending message to replace
+                    case DROP_OLDEST:
+                    default:
+                        while (isFull(size)) {
+                            removeOldest();
+                        }
+                        break;
+                }
+            }
+
+            Pending pending = new Pending(msg, size);
+            queue.addLast(pending);
+            queuedBytes += size;
+            if (limit.getOverflow() == NatsConfig.SubscriptionConfig.PendingLimit.OverflowPolicy.COALESCE) {
+                bySubject.put(msg.getSubject(), pending);
+            }
+
+            if (!draining) {
+                draining = true;
+                schedule = true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.increment();
+        } finally {
+            lock.unlock();
+        }
+
+        if (schedule) {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // Shutting down, the messages are discarded with the queue
+                lock.lock();
+                try {
+                    draining = false;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the consumer on the pending messages until the queue is empty.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            Pending pending;
+            lock.lock();
+            try {
+                pending = queue.pollFirst();
+                if (pending == null) {
+                    draining = false;
+                    return;
+                }
+                release(pending);
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+
+            try {
+                handler.onMessage(pending.message);
+            } catch (Exception e) {
+                logger.error("Error processing NATS message for subject {}", e, subject);
+            }
+        }
+    }
+
+    /**
+     * Discards the pending messages and wakes up the dispatcher threads waiting for
+     * room. Messages received afterwards are dropped.
+     *
+     * @return the number of discarded messages
+     */
+    int close() {
+        lock.lock();
+        try {
+            closed = true;
+            int discarded = queue.size();
+            queue.clear();
+            bySubject.clear();
+            queuedBytes = 0;
+            notFull.signalAll();
+            return discarded;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @NotNull
+    NatsConfig.SubscriptionConfig.PendingLimit getLimit() {
+        return limit;
+    }
+
+    int getQueuedMessages() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getQueuedBytes() {
+        lock.lock();
+        try {
+            return queuedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    private boolean isFull(int size) {
+        // A message larger than max_bytes is still accepted by an empty queue
+        return !queue.isEmpty() && (queue.size() >= limit.getMaxMessages()
+                || (limit.getMaxBytes() > 0 && queuedBytes + size > limit.getMaxBytes()));
+    }
+
+    private void removeOldest() {
+        release(queue.pollFirst());
+        dropped.increment();
+    }
+
+    private void release(Pending pending) {
+        queuedBytes -= pending.size;
+        if (limit.getOverflow() == NatsConfig.SubscriptionConfig.PendingLimit.OverflowPolicy.COALESCE) {
+            bySubject.remove(pending.message.getSubject(), pending);
+        }
+    }
+}
@@ -1,110 +1,488 @@
 package fr.nhsoul.natsbridge.core.subscription;
 
+import fr.nhsoul.natsbridge.common.api.DeliveryRouter;
+import fr.nhsoul.natsbridge.common.api.NatsRequest;
+import fr.nhsoul.natsbridge.common.api.NatsSubscription;
+import fr.nhsoul.natsbridge.common.api.OrderingKey;
+import fr.nhsoul.natsbridge.common.config.NatsConfig;
 import fr.nhsoul.natsbridge.common.logger.NatsLogger;
-import fr.nhsoul.natsbridge.core.DefaultSlf4jLogger;
-import fr.nhsoul.natsbridge.core.NatsBridge;
 import fr.nhsoul.natsbridge.core.connection.NatsConnectionManager;
 import io.nats.client.Connection;
 import io.nats.client.Dispatcher;
+import io.nats.client.MessageHandler;
+import io.nats.client.Subscription;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
+import java.util.function.Function;
 
 
 /**
  * Simplified SubscriptionManager implementation using jnats directly.
+ * <p>
+ * Synchronous subscriptions share a pool of low-latency dispatchers (assigned
+ * by subject), while each asynchronous subscription gets its own dispatcher
+ * (and thus its own thread and queue) so a slow consumer cannot hold up the others.
+ * <p>
+ * Subscriptions matching a configured pending limit are consumed from a bounded
+ * queue instead: their dispatcher only queues the messages, applying the overflow
+ * policy, and the consumer runs on a virtual thread. Latest-value and batch
+ * subscriptions are handed over the same way, through one conflating slot per
+ * key or as batches. Subscriptions ordered by key are handed over to a set of
+ * striped serial executors, shared so a key keeps its order across subjects.
+ * <p>
+ * Synchronous subscriptions without queue group share server subscriptions: a
+ * subject covered by another one (e.g. {@code game.chat.*} by {@code game.>}) is
+ * not subscribed on the server, its messages are routed in process instead.
  */
 public class DefaultSubscriptionManager {
 
-    private NatsLogger getLogger() {
-        NatsBridge bridge = NatsBridge.getInstance();
-        return bridge != null ? bridge.getLogger() : new DefaultSlf4jLogger(DefaultSubscriptionManager.class);
-    }
-
     private final NatsConnectionManager connectionManager;
+    private final NatsConfig.SubscriptionConfig config;
+    private final NatsLogger logger;
 
     // Maintain a list of registered subscription definitions to re-apply on
     // connect/reconnect
     private final List<SubscriptionDefinition> registeredSubscriptions = new CopyOnWriteArrayList<>();
 
-    // Active dispatcher (recreated on connection)
-    private volatile Dispatcher dispatcher;
+    private final AtomicInteger asyncDispatcherCounter = new AtomicInteger();
+
+    // Runs the consumers of the bounded, latest-value and batch subscriptions
+    private final ExecutorService deliveryExecutor =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("NatsBridge-delivery-", 0).factory());
+    // Serial executors of the subscriptions ordered by key
+    private final StripedExecutor orderedStripes;
 
-    public DefaultSubscriptionManager(@NotNull NatsConnectionManager connectionManager) {
+    // Dispatchers shared by synchronous subscriptions (recreated on connection)
+    private volatile DispatcherPool sharedDispatchers;
+    // Serial executors of the subscriptions served through a broader shared subject
+    private final StripedExecutor fanOutStripes;
+    // Server subscriptions shared by synchronous subscriptions
+    private final InterestRouter interests;
+
+    public DefaultSubscriptionManager(@NotNull NatsConnectionManager connectionManager,
+            @NotNull NatsConfig.SubscriptionConfig config,
+            @NotNull NatsLogger logger) {
         this.connectionManager = connectionManager;
+        this.config = config;
+        this.logger = logger;
+        this.orderedStripes = new StripedExecutor(config.getOrderedStripes(), deliveryExecutor, logger);
+        this.fanOutStripes = new StripedExecutor(config.getDispatcherPoolSize(), deliveryExecutor, logger);
+        this.interests = new InterestRouter(fanOutStripes, logger);
+    }
+
+    public NatsSubscription registerConsumerSubscription(@NotNull String subject,
+            @NotNull Consumer<byte[]> consumer,
+            boolean async) {
+        return registerConsumerSubscription(subject, null, consumer, async);
     }
 
-    public void registerConsumerSubscription(@NotNull String subject,
+    public NatsSubscription registerConsumerSubscription(@NotNull String subject,
+            @Nullable String queueGroup,
             @NotNull Consumer<byte[]> consumer,
             boolean async) {
-        SubscriptionDefinition def = new SubscriptionDefinition(subject, msg -> {
+        SubscriptionDefinition def = define(subject, queueGroup, msg -> {
             try {
                 consumer.accept(msg.getData());
             } catch (Exception e) {
-                getLogger().error("Error processing NATS message for subject {}", e, subject);
+                logger.error("Error processing NATS message for subject {}", e, subject);
+            }
+        }, async);
+
+        return addSubscription(def);
+    }
+
+    public NatsSubscription registerRoutedSubscription(@NotNull String subject,
+            @NotNull Consumer<byte[]> consumer,
+            @NotNull DeliveryRouter router) {
+        // Routed from the shared dispatcher, which only hands the message over
+        SubscriptionDefinition def = define(subject, null, msg -> {
+            byte[] data = msg.getData();
+            Runnable delivery = () -> {
+                try {
+                    consumer.accept(data);
+                } catch (Exception e) {
+                    logger.error("Error processing NATS message for subject {}", e, subject);
+                }
+            };
+
+            try {
+                Executor executor = router.route(msg.getSubject(), data);
+                if (executor != null) {
+                    executor.execute(delivery);
+                } else {
+                    delivery.run();
+                }
+            } catch (Exception e) {
+                logger.error("Failed to route NATS message for subject {}", e, subject);
             }
-        });
+        }, false);
+
+        return addSubscription(def);
+    }
+
+    public NatsSubscription registerLatestSubscription(@NotNull String subject,
+            @NotNull Function<String, String> keyExtractor,
+            @NotNull BiConsumer<String, byte[]> consumer) {
+        // Already bounded by the number of keys, pending limits do not apply
+        SubscriptionDefinition def = new SubscriptionDefinition(subject, null,
+                new LatestValueDelivery(subject, keyExtractor, consumer, deliveryExecutor, logger), false);
+
+        return addSubscription(def);
+    }
+
+    public NatsSubscription registerBatchSubscription(@NotNull String subject,
+            int maxBatch,
+            @NotNull Duration maxWait,
+            @NotNull Consumer<List<byte[]>> consumer) {
+        // Batches are already bounded in size, pending limits do not apply
+        SubscriptionDefinition def = new SubscriptionDefinition(subject, null,
+                new BatchDelivery(subject, maxBatch, maxWait.toNanos(), consumer, deliveryExecutor, logger), false);
 
-        addSubscription(def);
+        return addSubscription(def);
     }
 
-    private void addSubscription(SubscriptionDefinition def) {
+    public NatsSubscription registerOrderedSubscription(@NotNull String subject,
+            @NotNull OrderingKey orderingKey,
+            @NotNull Consumer<byte[]> consumer) {
+        // The stripes only reorder across keys, pending limits do not apply
+        SubscriptionDefinition def = new SubscriptionDefinition(subject, null,
+                new OrderedDelivery(subject, orderingKey, consumer, orderedStripes, logger), false);
+
+        return addSubscription(def);
+    }
+
+    public NatsSubscription registerRequestSubscription(@NotNull String subject,
+            @Nullable String queueGroup,
+            @NotNull Consumer<NatsRequest> handler,
+            boolean async) {
+        SubscriptionDefinition def = define(subject, queueGroup, msg -> {
+            try {
+                handler.accept(new ReceivedRequest(connectionManager, msg));
+            } catch (Exception e) {
+                logger.error("Error processing NATS request for subject {}", e, subject);
+            }
+        }, async);
+
+        return addSubscription(def);
+    }
+
+    private SubscriptionDefinition define(@NotNull String subject, @Nullable String queueGroup,
+            @NotNull MessageHandler handler, boolean async) {
+        NatsConfig.SubscriptionConfig.PendingLimit limit = config.findPendingLimit(subject);
+        if (limit != null) {
+            handler = new BoundedDelivery(subject, limit, handler, deliveryExecutor, logger);
+            logger.debug("Pending limit for {}: {}", subject, limit);
+        }
+        return new SubscriptionDefinition(subject, queueGroup, handler, async);
+    }
+
+    private synchronized NatsSubscription addSubscription(SubscriptionDefinition def) {
         registeredSubscriptions.add(def);
         // If already connected and dispatcher exists, subscribe immediately
-        if (dispatcher != null && dispatcher.isActive()) {
-            dispatcher.subscribe(def.subject, def.handler);
+        Connection conn = connectionManager.getConnection();
+        DispatcherPool pool = sharedDispatchers;
+        if (pool != null && pool.isActive() && conn != null) {
+            if (InterestRouter.isShareable(def)) {
+                interests.reconcile(pool, shareableSubscriptions());
+            } else {
+                activate(conn, def);
+            }
         }
+        return new Handle(def);
     }
 
-    public void subscribeAll() {
+    /**
+     * Removes a single subscription. A shared server subscription is only
+     * unsubscribed (or narrowed) once no other subscription needs it.
+     */
+    private synchronized void remove(@NotNull SubscriptionDefinition def) {
+        if (!registeredSubscriptions.remove(def)) {
+            return;
+        }
+
+        // Wakes up a dispatcher blocked on a full queue
+        discard(def);
+        deactivate(connectionManager.getConnection(), def);
+
+        DispatcherPool pool = sharedDispatchers;
+        if (InterestRouter.isShareable(def) && pool != null && pool.isActive()) {
+            interests.reconcile(pool, shareableSubscriptions());
+        }
+    }
+
+    public synchronized void subscribeAll() {
         Connection conn = connectionManager.getConnection();
         if (conn == null || conn.getStatus() != Connection.Status.CONNECTED) {
-            getLogger().warn("Cannot subscribe: NATS not connected");
+            logger.warn("Cannot subscribe: NATS not connected");
             return;
         }
 
-        // Create a new dispatcher
-        this.dispatcher = conn.createDispatcher();
+        // Drop dispatchers left over from a previous connection
+        for (SubscriptionDefinition def : registeredSubscriptions) {
+            deactivate(conn, def);
+        }
+
+        // Create a new pool of shared dispatchers
+        if (sharedDispatchers != null) {
+            sharedDispatchers.close(conn);
+        }
+        // Their subscriptions were closed with the dispatchers
+        interests.reset();
+        this.sharedDispatchers = new DispatcherPool(conn, config.getDispatcherPoolSize(),
+                config.getDispatcherAssignment());
 
         for (SubscriptionDefinition def : registeredSubscriptions) {
+            if (InterestRouter.isShareable(def)) {
+                continue;
+            }
             try {
-                this.dispatcher.subscribe(def.subject, def.handler);
-                getLogger().debug("Subscribed to {}", def.subject);
+                activate(conn, def);
+                logger.debug("Subscribed to {} on dispatcher {}", def.subject, def.dispatcherName);
             } catch (Exception e) {
-                getLogger().error("Failed to subscribe to {}", e, def.subject);
+                logger.error("Failed to subscribe to {}", e, def.subject);
             }
         }
-        getLogger().info("Activated {} subscriptions", registeredSubscriptions.size());
+        try {
+            interests.reconcile(sharedDispatchers, shareableSubscriptions());
+        } catch (Exception e) {
+            logger.error("Failed to subscribe the shared subjects", e);
+        }
+        logger.info("Activated {} subscriptions ({} server subscriptions, {} shared dispatchers, {} assignment)",
+                registeredSubscriptions.size(), getServerSubscriptionCount(), sharedDispatchers.size(),
+                config.getDispatcherAssignment());
     }
 
-    public void unsubscribe(@NotNull String subject) {
-        if (dispatcher != null && dispatcher.isActive()) {
-            dispatcher.unsubscribe(subject);
+    /**
+     * Removes every subscription to a subject, whoever made them.
+     */
+    public synchronized void unsubscribe(@NotNull String subject) {
+        Connection conn = connectionManager.getConnection();
+        for (SubscriptionDefinition def : registeredSubscriptions) {
+            if (def.subject.equals(subject)) {
+                // Wakes up a dispatcher blocked on a full queue
+                discard(def);
+                deactivate(conn, def);
+            }
         }
         registeredSubscriptions.removeIf(def -> def.subject.equals(subject));
+
+        // Drop or narrow the server subscriptions which routed them
+        DispatcherPool pool = sharedDispatchers;
+        if (pool != null && pool.isActive()) {
+            interests.reconcile(pool, shareableSubscriptions());
+        }
     }
 
-    public void unsubscribeAll() {
-        if (dispatcher != null && dispatcher.isActive()) {
-            for (SubscriptionDefinition def : registeredSubscriptions) {
-                dispatcher.unsubscribe(def.subject);
-            }
+    public synchronized void unsubscribeAll() {
+        Connection conn = connectionManager.getConnection();
+        for (SubscriptionDefinition def : registeredSubscriptions) {
+            discard(def);
+            deactivate(conn, def);
         }
+        interests.unsubscribeAll();
         registeredSubscriptions.clear();
     }
 
     public void shutdown() {
         unsubscribeAll();
+        int discarded = orderedStripes.clear();
+        if (discarded > 0) {
+            logger.debug("Discarded {} pending ordered deliveries", discarded);
+        }
+        fanOutStripes.clear();
+        deliveryExecutor.shutdown();
+    }
+
+    /**
+     * Gets the number of subscriptions held on the server, lower than the number
+     * of registered subscriptions when subjects are shared.
+     */
+    public synchronized int getServerSubscriptionCount() {
+        int count = interests.getInterestCount();
+        for (SubscriptionDefinition def : registeredSubscriptions) {
+            if (!InterestRouter.isShareable(def) && def.isActive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of messages waiting on the serial executors of the
+     * subscriptions ordered by key.
+     */
+    public int getOrderedQueueDepth() {
+        return orderedStripes.getQueuedTasks();
+    }
+
+    /**
+     * Gets a snapshot of the statistics of every registered subscription,
+     * including the dispatcher serving it and its queue depth.
+     *
+     * @return the statistics, in registration order
+     */
+    @NotNull
+    public List<SubscriptionStats> getSubscriptionStats() {
+        List<SubscriptionStats> stats = new ArrayList<>(registeredSubscriptions.size());
+        for (SubscriptionDefinition def : registeredSubscriptions) {
+            Dispatcher dispatcher = def.getDispatcher();
+            Subscription subscription = def.subscription;
+            String dispatcherName = def.dispatcherName != null ? def.dispatcherName : "none";
+
+            long dispatcherPending = dispatcher != null ? dispatcher.getPendingMessageCount() : 0;
+            long dispatcherPendingBytes = dispatcher != null ? dispatcher.getPendingByteCount() : 0;
+            long delivered = subscription != null ? subscription.getDeliveredCount() : 0;
+            long dropped = dispatcher != null ? dispatcher.getDroppedCount() : 0;
+
+            SubscriptionStats.Delivery delivery = SubscriptionStats.Delivery.DIRECT;
+            NatsConfig.SubscriptionConfig.PendingLimit limit = null;
+            long queued = 0;
+            long queuedBytes = 0;
+            long overflowed = 0;
+            long coalesced = 0;
+            if (def.bounded != null) {
+                delivery = SubscriptionStats.Delivery.BOUNDED;
+                limit = def.bounded.getLimit();
+                queued = def.bounded.getQueuedMessages();
+                queuedBytes = def.bounded.getQueuedBytes();
+                overflowed = def.bounded.getDroppedCount();
+                coalesced = def.bounded.getCoalescedCount();
+            } else if (def.latest != null) {
+                delivery = SubscriptionStats.Delivery.LATEST_VALUE;
+                queued = def.latest.getPendingKeys();
+                coalesced = def.latest.getConflatedCount();
+            } else if (def.batch != null) {
+                delivery = SubscriptionStats.Delivery.BATCH;
+                queued = def.batch.getBufferedMessages();
+            } else if (def.ordered != null) {
+                delivery = SubscriptionStats.Delivery.ORDERED;
+            }
+
+            stats.add(new SubscriptionStats(def.subject, def.queueGroup, dispatcherName, def.async, def.isActive(),
+                    dispatcherPending, dispatcherPendingBytes, delivered, dropped, delivery, limit,
+                    queued, queuedBytes, overflowed, coalesced));
+        }
+        return stats;
+    }
+
+    private void activate(@NotNull Connection conn, @NotNull SubscriptionDefinition def) {
+        if (def.async) {
+            Dispatcher dispatcher = conn.createDispatcher();
+            String name = "async-" + asyncDispatcherCounter.incrementAndGet();
+            def.bind(name, dispatcher, subscribe(dispatcher, def));
+        } else {
+            DispatcherPool pool = sharedDispatchers;
+            int index = pool.select(def.subject);
+            Dispatcher dispatcher = pool.get(index);
+            def.bind(pool.name(index), dispatcher, subscribe(dispatcher, def));
+        }
+    }
+
+    private static Subscription subscribe(@NotNull Dispatcher dispatcher, @NotNull SubscriptionDefinition def) {
+        return def.queueGroup != null
+                ? dispatcher.subscribe(def.subject, def.queueGroup, def.handler)
+                : dispatcher.subscribe(def.subject, def.handler);
+    }
+
+    private void discard(@NotNull SubscriptionDefinition def) {
+        if (def.bounded != null) {
+            int discarded = def.bounded.close();
+            if (discarded > 0) {
+                logger.debug("Discarded {} pending messages of {}", discarded, def.subject);
+            }
+        }
+        if (def.latest != null) {
+            def.latest.close();
+        }
+        if (def.batch != null) {
+            def.batch.close();
+        }
+        if (def.ordered != null) {
+            def.ordered.close();
+        }
+    }
+
+    private List<SubscriptionDefinition> shareableSubscriptions() {
+        List<SubscriptionDefinition> shareable = new ArrayList<>();
+        for (SubscriptionDefinition def : registeredSubscriptions) {
+            if (InterestRouter.isShareable(def)) {
+                shareable.add(def);
+            }
+        }
+        return shareable;
     }
 
-    private static class SubscriptionDefinition {
-        final String subject;
-        final io.nats.client.MessageHandler handler;
+    private void deactivate(Connection conn, @NotNull SubscriptionDefinition def) {
+        Dispatcher dispatcher = def.getDispatcher();
+        Subscription subscription = def.subscription;
+        def.unbind();
+        if (dispatcher == null || !dispatcher.isActive() || InterestRouter.isShareable(def)) {
+            // The server subscription of a shareable subscription belongs to the interest router
+            return;
+        }
+
+        try {
+            if (def.async) {
+                // The dispatcher is dedicated to this subscription, close it with it
+                if (conn != null) {
+                    conn.closeDispatcher(dispatcher);
+                }
+            } else if (subscription != null) {
+                dispatcher.unsubscribe(subscription);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to unsubscribe from {}", e, def.subject);
+        }
+    }
+
+    /**
+     * Handle of a registered subscription, removing only it.
+     */
+    private final class Handle implements NatsSubscription {
+        private final SubscriptionDefinition def;
+
+        Handle(@NotNull SubscriptionDefinition def) {
+            this.def = def;
+        }
+
+        @Override
+        @NotNull
+        public String getSubject() {
+            return def.subject;
+        }
+
+        @Override
+        @Nullable
+        public String getQueueGroup() {
+            return def.queueGroup;
+        }
+
+        @Override
+        public boolean isActive() {
+            // Unbound once removed
+            return def.isActive();
+        }
+
+        @Override
+        public void unsubscribe() {
+            remove(def);
+        }
 
-        SubscriptionDefinition(String subject, io.nats.client.MessageHandler handler) {
-            this.subject = subject;
-            this.handler = handler;
+        @Override
+        public String toString() {
+            return "NatsSubscription[" + def.subject
+                    + (def.queueGroup != null ? ", queue " + def.queueGroup : "") + "]";
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,97 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.common.config.NatsConfig.SubscriptionConfig.DispatcherAssignment;
+import io.nats.client.Connection;
+import io.nats.client.Dispatcher;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Fixed-size pool of dispatchers shared by synchronous subscriptions.
+ * <p>
+ * Each dispatcher owns one thread, so subscriptions spread over the pool are
+ * processed in parallel while every subscription keeps its messages in order.
+ * With {@link DispatcherAssignment#CONSISTENT_HASH}, all subscriptions on a
+ * subject are served by the same dispatcher.
+ */
+final class DispatcherPool {
+
+    // Points per dispatcher on the hash ring, smooths out the distribution
+    private static final int VIRTUAL_NODES = 64;
+
+    private final Dispatcher[] dispatchers;
+    private final String[] names;
+    private final DispatcherAssignment assignment;
+    private final TreeMap<Integer, Integer> ring = new TreeMap<>();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    DispatcherPool(@NotNull Connection connection, int size, @NotNull DispatcherAssignment assignment) {
+        this.dispatchers = new Dispatcher[size];
+        this.names = new String[size];
+        this.assignment = assignment;
+
+        for (int i = 0; i < size; i++) {
+            dispatchers[i] = connection.createDispatcher();
+            names[i] = size == 1 ? "shared" : "shared-" + i;
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                ring.put(mix(i * VIRTUAL_NODES + v), i);
+            }
+        }
+    }
+
+    /**
+     * Selects the dispatcher index for a subject.
+     */
+    int select(@NotNull String subject) {
+        if (dispatchers.length == 1) {
+            return 0;
+        }
+
+        if (assignment == DispatcherAssignment.ROUND_ROBIN) {
+            return Math.floorMod(roundRobin.getAndIncrement(), dispatchers.length);
+        }
+
+        Map.Entry<Integer, Integer> entry = ring.ceilingEntry(mix(subject.hashCode()));
+        return entry != null ? entry.getValue() : ring.firstEntry().getValue();
+    }
+
+    @NotNull
+    Dispatcher get(int index) {
+        return dispatchers[index];
+    }
+
+    @NotNull
+    String name(int index) {
+        return names[index];
+    }
+
+    int size() {
+        return dispatchers.length;
+    }
+
+    boolean isActive() {
+        return dispatchers[0].isActive();
+    }
+
+    void close(@NotNull Connection connection) {
+        for (Dispatcher dispatcher : dispatchers) {
+            if (dispatcher.isActive()) {
+                connection.closeDispatcher(dispatcher);
+            }
+        }
+    }
+
+    // Murmur3 finalizer, spreads String.hashCode() over the whole int range
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -0,0 +1,94 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.common.logger.NatsLogger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+
+
+/**
+ * Resolves the Netty event loop owning a player connection on a proxy.
+ * <p>
+ * Proxy APIs do not expose the connection channel, so the event loop is reached
+ * through a chain of public no-arg getters of the implementation class (e.g.
+ * {@code getConnection().eventLoop()} on Velocity). The chain is resolved once per
+ * player class into a single method handle; if a getter is missing (another proxy
+ * implementation or version), players of that class resolve to {@code null} and
+ * callers fall back to their own executor.
+ */
+public class EventLoopResolver {
+
+    private static final MethodType EXECUTOR_GETTER = MethodType.methodType(Executor.class, Object.class);
+
+    private final String[] getters;
+    private final NatsLogger logger;
+
+    private final ClassValue<MethodHandle> handles = new ClassValue<>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            return resolve(type);
+        }
+    };
+
+    /**
+     * @param logger  the logger reporting unresolvable player classes
+     * @param getters the getter names leading from the player object to its event loop
+     */
+    public EventLoopResolver(@NotNull NatsLogger logger, @NotNull String... getters) {
+        if (getters.length == 0) {
+            throw new IllegalArgumentException("At least one getter is required");
+        }
+        this.logger = logger;
+        this.getters = getters.clone();
+    }
+
+    /**
+     * Gets the event loop owning a player connection.
+     *
+     * @param player the platform player object
+     * @return the event loop, or null if it cannot be resolved
+     */
+    @Nullable
+    public Executor resolve(@NotNull Object player) {
+        MethodHandle handle = handles.get(player.getClass());
+        if (handle == null) {
+            return null;
+        }
+
+        try {
+            return (Executor) handle.invokeExact(player);
+        } catch (Throwable t) {
+            // Connection being torn down
+            return null;
+        }
+    }
+
+    @Nullable
+    private MethodHandle resolve(Class<?> type) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            MethodHandle chain = null;
+            Class<?> current = type;
+            for (String getter : getters) {
+                Method method = current.getMethod(getter);
+                MethodHandle handle = lookup.unreflect(method);
+                chain = chain == null ? handle : MethodHandles.filterReturnValue(chain, handle);
+                current = method.getReturnType();
+            }
+
+            if (!Executor.class.isAssignableFrom(current)) {
+                throw new NoSuchMethodException(String.join("().", getters) + "() does not return an Executor");
+            }
+            return chain.asType(EXECUTOR_GETTER);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            logger.warn("Cannot resolve the event loop of {} players ({}), using the fallback executor",
+                    type.getName(), e.toString());
+            return null;
+        }
+    }
+}
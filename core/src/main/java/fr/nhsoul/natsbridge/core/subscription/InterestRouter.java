@@ -0,0 +1,215 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.common.logger.NatsLogger;
+import io.nats.client.Dispatcher;
+import io.nats.client.Message;
+import io.nats.client.MessageHandler;
+import io.nats.client.Subscription;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * Shares server subscriptions between the local subscriptions served by the
+ * pooled dispatchers.
+ * <p>
+ * Only the subjects not covered by another registered subject are subscribed on
+ * the server (e.g. {@code game.>} serves {@code game.chat.*} and
+ * {@code game.chat.global}), so a message matching several local subscriptions is
+ * received once and fanned out in process through a {@link SubjectTrie}. Each local
+ * subscription is routed by a single interest, so it never receives a message twice.
+ * <p>
+ * The local subscriptions on the subject of an interest are served on its dispatcher
+ * thread. Those reached through a broader subject are handed over to a stripe of
+ * their own, so they still run in parallel and a slow consumer does not hold up the
+ * other subscriptions routed by the same interest.
+ * <p>
+ * Queue group subscriptions keep their own server subscription, to stay
+ * load-balanced, and so do async subscriptions, which have their own dispatcher.
+ * Not thread-safe: calls are serialized by the subscription manager.
+ */
+final class InterestRouter {
+
+    private final NatsLogger logger;
+    // Serial executors of the subscriptions routed through a broader subject
+    private final StripedExecutor fanOut;
+
+    // Server subscriptions by subject
+    private final Map<String, Interest> interests = new LinkedHashMap<>();
+
+    InterestRouter(@NotNull StripedExecutor fanOut, @NotNull NatsLogger logger) {
+        this.fanOut = fanOut;
+        this.logger = logger;
+    }
+
+    /**
+     * Checks whether a local subscription can share a server subscription.
+     */
+    static boolean isShareable(@NotNull SubscriptionDefinition def) {
+        return !def.async && def.queueGroup == null;
+    }
+
+    /**
+     * A server subscription and the local subscriptions it routes.
+     */
+    private static final class Interest implements MessageHandler {
+        private final String subject;
+        private final String dispatcherName;
+        private final Dispatcher dispatcher;
+        private final StripedExecutor fanOut;
+        private final NatsLogger logger;
+        private Subscription subscription;
+        private volatile SubjectTrie<SubscriptionDefinition> routes = new SubjectTrie<>();
+
+        Interest(String subject, String dispatcherName, Dispatcher dispatcher, StripedExecutor fanOut,
+                 NatsLogger logger) {
+            this.subject = subject;
+            this.dispatcherName = dispatcherName;
+            this.dispatcher = dispatcher;
+            this.fanOut = fanOut;
+            this.logger = logger;
+        }
+
+        @Override
+        public void onMessage(Message msg) {
+            routes.match(msg.getSubject(), def -> {
+                if (def.subject.equals(subject)) {
+                    deliver(def, msg);
+                } else {
+                    // Keyed by subscription: its messages stay in order
+                    fanOut.execute(def, () -> {
+                        if (def.subscription != null) {
+                            deliver(def, msg);
+                        }
+                    });
+                }
+            });
+        }
+
+        private void deliver(SubscriptionDefinition def, Message msg) {
+            try {
+                def.handler.onMessage(msg);
+            } catch (Exception e) {
+                logger.error("Error processing NATS message for subject {}", e, def.subject);
+            }
+        }
+    }
+
+    /**
+     * Updates the server subscriptions to serve exactly the given local subscriptions:
+     * missing interests are subscribed, every local subscription is bound to the
+     * interest routing it, and interests left without local subscriptions are
+     * unsubscribed.
+     * <p>
+     * When a broader subject replaces narrower ones, messages already received on
+     * both server subscriptions while routes are swapped may be seen twice.
+     *
+     * @param pool the dispatchers to subscribe the new interests on
+     * @param defs the shareable local subscriptions
+     */
+    void reconcile(@NotNull DispatcherPool pool, @NotNull List<SubscriptionDefinition> defs) {
+        Set<String> subjects = new LinkedHashSet<>();
+        for (SubscriptionDefinition def : defs) {
+            subjects.add(def.subject);
+        }
+
+        // Keep the subjects no other subject covers
+        List<String> wanted = new ArrayList<>();
+        for (String subject : subjects) {
+            boolean covered = false;
+            for (String other : subjects) {
+                if (!other.equals(subject) && SubjectTrie.covers(other, subject)) {
+                    covered = true;
+                    break;
+                }
+            }
+            if (!covered) {
+                wanted.add(subject);
+            }
+        }
+
+        // Subscribe the new interests before moving routes to them
+        for (String subject : wanted) {
+            if (!interests.containsKey(subject)) {
+                int index = pool.select(subject);
+                Interest interest = new Interest(subject, pool.name(index), pool.get(index), fanOut, logger);
+                interest.subscription = interest.dispatcher.subscribe(subject, interest);
+                interests.put(subject, interest);
+                logger.debug("Subscribed to {} on dispatcher {}", subject, interest.dispatcherName);
+            }
+        }
+
+        Map<String, SubjectTrie<SubscriptionDefinition>> routes = new HashMap<>();
+        for (SubscriptionDefinition def : defs) {
+            Interest interest = null;
+            for (String subject : wanted) {
+                if (subject.equals(def.subject) || SubjectTrie.covers(subject, def.subject)) {
+                    interest = interests.get(subject);
+                    break;
+                }
+            }
+
+            routes.computeIfAbsent(interest.subject, s -> new SubjectTrie<>()).add(def.subject, def);
+            String label = interest.subject.equals(def.subject)
+                    ? interest.dispatcherName
+                    : interest.dispatcherName + " via " + interest.subject;
+            def.bind(label, interest.dispatcher, interest.subscription);
+        }
+
+        for (Interest interest : interests.values()) {
+            SubjectTrie<SubscriptionDefinition> trie = routes.get(interest.subject);
+            interest.routes = trie != null ? trie : new SubjectTrie<>();
+        }
+
+        // Drop the interests now covered by a broader one, or without local subscription
+        interests.values().removeIf(interest -> {
+            if (routes.containsKey(interest.subject)) {
+                return false;
+            }
+            unsubscribe(interest);
+            return true;
+        });
+    }
+
+    /**
+     * Forgets the interests without unsubscribing them, after their dispatchers were closed.
+     */
+    void reset() {
+        interests.clear();
+    }
+
+    /**
+     * Unsubscribes every interest.
+     */
+    void unsubscribeAll() {
+        for (Interest interest : interests.values()) {
+            unsubscribe(interest);
+        }
+        interests.clear();
+    }
+
+    /**
+     * Gets the number of server subscriptions shared by the local subscriptions.
+     */
+    int getInterestCount() {
+        return interests.size();
+    }
+
+    private void unsubscribe(Interest interest) {
+        try {
+            if (interest.dispatcher.isActive()) {
+                interest.dispatcher.unsubscribe(interest.subscription);
+            }
+            logger.debug("Unsubscribed from {}", interest.subject);
+        } catch (Exception e) {
+            logger.error("Failed to unsubscribe from {}", e, interest.subject);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.common.logger.NatsLogger;
+import io.nats.client.Message;
+import io.nats.client.MessageHandler;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+
+/**
+ * Conflating hand-off between the dispatcher of a subscription and its consumer.
+ * <p>
+ * Each key has a single slot holding its latest message. The dispatcher only
+ * overwrites the slot; a key is queued for delivery when its slot goes from empty
+ * to full, so the drain task delivers every updated key once, in the order they
+ * were first updated, with the value they hold at that time.
+ */
+final class LatestValueDelivery implements MessageHandler, Runnable {
+
+    private final String subject;
+    private final Function<String, String> keyExtractor;
+    private final BiConsumer<String, byte[]> consumer;
+    private final Executor executor;
+    private final NatsLogger logger;
+
+    private final Map<String, Message> slots = new ConcurrentHashMap<>();
+    // Keys whose slot is full, each queued at most once
+    private final Queue<String> updated = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private final LongAdder conflated = new LongAdder();
+
+    LatestValueDelivery(@NotNull String subject, @NotNull Function<String, String> keyExtractor,
+                        @NotNull BiConsumer<String, byte[]> consumer, @NotNull Executor executor,
+                        @NotNull NatsLogger logger) {
+        this.subject = subject;
+        this.keyExtractor = keyExtractor;
+        this.consumer = consumer;
+        this.executor = executor;
+        this.logger = logger;
+    }
+
+    /**
+     * Stores a message in the slot of its key. Called by the dispatcher thread.
+     */
+    @Override
+    public void onMessage(Message msg) {
+        if (closed) {
+            return;
+        }
+
+        String key;
+        try {
+            key = keyExtractor.apply(msg.getSubject());
+        } catch (Exception e) {
+            logger.error("Failed to extract the key of NATS message {}", e, msg.getSubject());
+            return;
+        }
+
+        if (slots.put(key, msg) != null) {
+            // The previous value was never seen by the consumer
+            conflated.increment();
+            return;
+        }
+
+        updated.add(key);
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                draining.set(false);
+            }
+        }
+    }
+
+    /**
+     * Delivers the latest value of every updated key.
+     */
+    @Override
+    public void run() {
+        do {
+            String key;
+            while (!closed && (key = updated.poll()) != null) {
+                Message msg = slots.remove(key);
+                if (msg == null) {
+                    continue;
+                }
+
+                try {
+                    consumer.accept(key, msg.getData());
+                } catch (Exception e) {
+                    logger.error("Error processing NATS message for subject {}", e, subject);
+                }
+            }
+            draining.set(false);
+            // A key may have been queued after the last poll, before draining was reset
+        } while (!closed && !updated.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    /**
+     * Discards the values not delivered yet. Messages received afterwards are ignored.
+     */
+    void close() {
+        closed = true;
+        slots.clear();
+        updated.clear();
+    }
+
+    /**
+     * Gets the number of keys holding a value not delivered yet.
+     */
+    int getPendingKeys() {
+        return slots.size();
+    }
+
+    /**
+     * Gets the number of values overwritten before being delivered.
+     */
+    long getConflatedCount() {
+        return conflated.sum();
+    }
+}
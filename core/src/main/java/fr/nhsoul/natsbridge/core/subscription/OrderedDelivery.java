@@ -0,0 +1,74 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.common.api.OrderingKey;
+import fr.nhsoul.natsbridge.common.logger.NatsLogger;
+import io.nats.client.Message;
+import io.nats.client.MessageHandler;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.function.Consumer;
+
+
+/**
+ * Hands the messages of a subscription over to the stripe of their ordering key,
+ * so messages with equal keys are consumed in order while different keys are
+ * consumed in parallel.
+ */
+final class OrderedDelivery implements MessageHandler {
+
+    private final String subject;
+    private final OrderingKey orderingKey;
+    private final Consumer<byte[]> consumer;
+    private final StripedExecutor stripes;
+    private final NatsLogger logger;
+    private volatile boolean closed;
+
+    OrderedDelivery(@NotNull String subject, @NotNull OrderingKey orderingKey, @NotNull Consumer<byte[]> consumer,
+                    @NotNull StripedExecutor stripes, @NotNull NatsLogger logger) {
+        this.subject = subject;
+        this.orderingKey = orderingKey;
+        this.consumer = consumer;
+        this.stripes = stripes;
+        this.logger = logger;
+    }
+
+    /**
+     * Extracts the key of a message and queues it on its stripe. Called by the
+     * dispatcher thread.
+     */
+    @Override
+    public void onMessage(Message msg) {
+        if (closed) {
+            return;
+        }
+
+        byte[] data = msg.getData();
+        Object key;
+        try {
+            key = orderingKey.extract(msg.getSubject(), data);
+        } catch (Exception e) {
+            logger.error("Failed to extract the ordering key of NATS message {}", e, msg.getSubject());
+            return;
+        }
+
+        stripes.execute(key, () -> {
+            if (closed) {
+                // Unsubscribed while queued on the shared stripe
+                return;
+            }
+            try {
+                consumer.accept(data);
+            } catch (Exception e) {
+                logger.error("Error processing NATS message for subject {}", e, subject);
+            }
+        });
+    }
+
+    /**
+     * Stops delivering: the messages still queued on the stripes are skipped and
+     * messages received afterwards are ignored.
+     */
+    void close() {
+        closed = true;
+    }
+}
@@ -0,0 +1,70 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.common.api.NatsRequest;
+import fr.nhsoul.natsbridge.common.exception.NatsException;
+import fr.nhsoul.natsbridge.core.connection.NatsConnectionManager;
+import io.nats.client.Connection;
+import io.nats.client.Message;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * {@link NatsRequest} backed by a received jnats message.
+ */
+final class ReceivedRequest implements NatsRequest {
+
+    private final NatsConnectionManager connectionManager;
+    private final Message message;
+
+    ReceivedRequest(@NotNull NatsConnectionManager connectionManager, @NotNull Message message) {
+        this.connectionManager = connectionManager;
+        this.message = message;
+    }
+
+    @Override
+    @NotNull
+    public String getSubject() {
+        return message.getSubject();
+    }
+
+    @Override
+    @Nullable
+    public String getReplyTo() {
+        return message.getReplyTo();
+    }
+
+    @Override
+    @Nullable
+    public byte[] getData() {
+        return message.getData();
+    }
+
+    @Override
+    public void reply(@Nullable byte[] data) {
+        String replyTo = message.getReplyTo();
+        if (replyTo == null || replyTo.isEmpty()) {
+            throw new IllegalStateException("Request on subject " + message.getSubject() + " has no reply subject");
+        }
+
+        Connection connection = connectionManager.getConnection();
+        if (connection == null || connection.getStatus() != Connection.Status.CONNECTED) {
+            throw new IllegalStateException("NATS connection is not available. Status: " +
+                    connectionManager.getConnectionStatus());
+        }
+
+        try {
+            connection.publish(replyTo, data);
+        } catch (Exception e) {
+            throw new NatsException.PublishException("Failed to reply to request on subject: "
+                    + message.getSubject(), e);
+        }
+    }
+
+    @Override
+    public void replyString(@Nullable String data) {
+        reply(data != null ? data.getBytes(StandardCharsets.UTF_8) : null);
+    }
+}
@@ -0,0 +1,123 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.common.logger.NatsLogger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * A fixed set of serial executors, selected by key.
+ * <p>
+ * Tasks submitted with equal keys land on the same stripe and run one at a time
+ * in submission order; stripes run in parallel on the underlying executor. Each
+ * stripe is drained by at most one task at a time, which only exists while the
+ * stripe has work.
+ */
+final class StripedExecutor {
+
+    private final Stripe[] stripes;
+
+    StripedExecutor(int stripeCount, @NotNull Executor executor, @NotNull NatsLogger logger) {
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(executor, logger);
+        }
+    }
+
+    /**
+     * Runs a task after the tasks previously submitted with an equal key.
+     */
+    void execute(@Nullable Object key, @NotNull Runnable task) {
+        int hash = key != null ? key.hashCode() : 0;
+        // Spread the high bits, as HashMap does, so keys differing only there do not collide
+        hash ^= hash >>> 16;
+        stripes[Math.floorMod(hash, stripes.length)].execute(task);
+    }
+
+    int size() {
+        return stripes.length;
+    }
+
+    /**
+     * Gets the number of tasks waiting on every stripe.
+     */
+    int getQueuedTasks() {
+        int queued = 0;
+        for (Stripe stripe : stripes) {
+            queued += stripe.depth.get();
+        }
+        return queued;
+    }
+
+    /**
+     * Discards the tasks not started yet.
+     *
+     * @return the number of discarded tasks
+     */
+    int clear() {
+        int discarded = 0;
+        for (Stripe stripe : stripes) {
+            while (stripe.queue.poll() != null) {
+                stripe.depth.decrementAndGet();
+                discarded++;
+            }
+        }
+        return discarded;
+    }
+
+    private static final class Stripe implements Executor, Runnable {
+        private final Executor executor;
+        private final NatsLogger logger;
+        private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+        // ConcurrentLinkedQueue.size() walks the whole queue
+        private final AtomicInteger depth = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        Stripe(Executor executor, NatsLogger logger) {
+            this.executor = executor;
+            this.logger = logger;
+        }
+
+        @Override
+        public void execute(@NotNull Runnable task) {
+            queue.add(task);
+            depth.incrementAndGet();
+            schedule();
+        }
+
+        @Override
+        public void run() {
+            do {
+                Runnable task;
+                while ((task = queue.poll()) != null) {
+                    depth.decrementAndGet();
+                    try {
+                        task.run();
+                    } catch (Throwable t) {
+                        logger.error("Error running an ordered NATS delivery", t);
+                    }
+                }
+                draining.set(false);
+                // A task may have been queued after the last poll, before draining was reset
+            } while (!queue.isEmpty() && draining.compareAndSet(false, true));
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    draining.set(false);
+                }
+            }
+        }
+    }
+}
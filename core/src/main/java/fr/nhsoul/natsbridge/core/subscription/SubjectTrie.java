@@ -0,0 +1,114 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.common.util.SubjectPattern;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+
+/**
+ * Trie of subject patterns, matching concrete subjects with the NATS wildcard
+ * semantics: {@code *} matches a single token and {@code >} one or more trailing
+ * tokens.
+ * <p>
+ * A trie is filled once and then only read, so it can be matched concurrently
+ * by several dispatcher threads once safely published (e.g. through a volatile field).
+ *
+ * @param <T> the type of the values registered under the patterns
+ */
+final class SubjectTrie<T> {
+
+    private final Node<T> root = new Node<>();
+    private int size;
+
+    private static final class Node<T> {
+        private final Map<String, Node<T>> children = new HashMap<>();
+        private Node<T> star;
+        // Values of the patterns ending at this node
+        private final List<T> values = new ArrayList<>(1);
+        // Values of the patterns ending with '>' after this node
+        private final List<T> tail = new ArrayList<>(1);
+    }
+
+    /**
+     * Registers a value under a pattern.
+     */
+    void add(@NotNull String pattern, @NotNull T value) {
+        Node<T> node = root;
+        String[] tokens = pattern.split("\\.", -1);
+        for (int i = 0; i < tokens.length; i++) {
+            String token = tokens[i];
+            if (token.equals(">") && i == tokens.length - 1) {
+                node.tail.add(value);
+                size++;
+                return;
+            }
+            if (token.equals("*")) {
+                if (node.star == null) {
+                    node.star = new Node<>();
+                }
+                node = node.star;
+            } else {
+                node = node.children.computeIfAbsent(token, t -> new Node<>());
+            }
+        }
+        node.values.add(value);
+        size++;
+    }
+
+    /**
+     * Calls an action with every value whose pattern matches a concrete subject.
+     */
+    void match(@NotNull String subject, @NotNull Consumer<? super T> action) {
+        match(root, subject, 0, action);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param start the index of the next token of the subject, or -1 once every token is consumed
+     */
+    private static <T> void match(Node<T> node, String subject, int start, Consumer<? super T> action) {
+        if (start < 0) {
+            forEach(node.values, action);
+            return;
+        }
+
+        // At least one token is left
+        forEach(node.tail, action);
+
+        int end = subject.indexOf('.', start);
+        String token = end < 0 ? subject.substring(start) : subject.substring(start, end);
+        int next = end < 0 ? -1 : end + 1;
+
+        Node<T> child = node.children.get(token);
+        if (child != null) {
+            match(child, subject, next, action);
+        }
+        if (node.star != null) {
+            match(node.star, subject, next, action);
+        }
+    }
+
+    private static <T> void forEach(List<T> values, Consumer<? super T> action) {
+        for (int i = 0, n = values.size(); i < n; i++) {
+            action.accept(values.get(i));
+        }
+    }
+
+    /**
+     * Checks whether every subject matched by a pattern is also matched by another.
+     *
+     * @param pattern the covering pattern
+     * @param other   the covered pattern
+     */
+    static boolean covers(@NotNull String pattern, @NotNull String other) {
+        return SubjectPattern.covers(pattern, other);
+    }
+}
@@ -0,0 +1,67 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import io.nats.client.Dispatcher;
+import io.nats.client.MessageHandler;
+import io.nats.client.Subscription;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+
+/**
+ * A registered subscription, kept so it can be re-applied on connect/reconnect.
+ * Holds the jnats objects backing it while it is active.
+ */
+final class SubscriptionDefinition {
+
+    final String subject;
+    // Null for a regular (non load-balanced) subscription
+    final String queueGroup;
+    final MessageHandler handler;
+    final boolean async;
+    // Set when a pending limit applies: the handler queuing the messages for the consumer
+    final BoundedDelivery bounded;
+    // Set for a latest-value subscription: the handler conflating the messages
+    final LatestValueDelivery latest;
+    // Set for a batch subscription: the handler accumulating the messages
+    final BatchDelivery batch;
+    // Set for a subscription ordered by key
+    final OrderedDelivery ordered;
+
+    // Label of the dispatcher serving this subscription (for diagnostics)
+    volatile String dispatcherName;
+    volatile Dispatcher dispatcher;
+    volatile Subscription subscription;
+
+    SubscriptionDefinition(@NotNull String subject, @Nullable String queueGroup, @NotNull MessageHandler handler,
+                           boolean async) {
+        this.subject = subject;
+        this.queueGroup = queueGroup;
+        this.handler = handler;
+        this.async = async;
+        this.bounded = handler instanceof BoundedDelivery ? (BoundedDelivery) handler : null;
+        this.latest = handler instanceof LatestValueDelivery ? (LatestValueDelivery) handler : null;
+        this.batch = handler instanceof BatchDelivery ? (BatchDelivery) handler : null;
+        this.ordered = handler instanceof OrderedDelivery ? (OrderedDelivery) handler : null;
+    }
+
+    void bind(@NotNull String dispatcherName, @NotNull Dispatcher dispatcher, @NotNull Subscription subscription) {
+        this.dispatcherName = dispatcherName;
+        this.dispatcher = dispatcher;
+        this.subscription = subscription;
+    }
+
+    void unbind() {
+        this.dispatcher = null;
+        this.subscription = null;
+    }
+
+    boolean isActive() {
+        Subscription sub = subscription;
+        return sub != null && sub.isActive();
+    }
+
+    @Nullable
+    Dispatcher getDispatcher() {
+        return dispatcher;
+    }
+}
@@ -0,0 +1,202 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.common.config.NatsConfig;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+
+/**
+ * Point-in-time statistics of a single subscription.
+ * <p>
+ * Pending counts are those of the dispatcher queue serving the subscription:
+ * for an async subscription this is its own dedicated queue, for a sync
+ * subscription it is the queue of the pooled dispatcher it is assigned to.
+ * A subscription with a pending limit also reports its own bounded queue,
+ * holding the messages handed over by the dispatcher to the consumer, a
+ * latest-value subscription its conflating slots and a batch subscription the
+ * messages not delivered yet.
+ */
+public class SubscriptionStats {
+
+    /**
+     * How the messages received by the dispatcher reach the consumer.
+     */
+    public enum Delivery {
+        /**
+         * The dispatcher runs the consumer (or hands the message to an executor).
+         */
+        DIRECT,
+        /**
+         * Through a bounded queue, see {@link #getPendingLimit()}.
+         */
+        BOUNDED,
+        /**
+         * Through one slot per key, holding its latest value.
+         */
+        LATEST_VALUE,
+        /**
+         * In batches.
+         */
+        BATCH,
+        /**
+         * On the serial executor of the ordering key of each message.
+         */
+        ORDERED
+    }
+
+    private final String subject;
+    private final String queueGroup;
+    private final String dispatcher;
+    private final boolean async;
+    private final boolean active;
+    private final long pendingMessages;
+    private final long pendingBytes;
+    private final long deliveredMessages;
+    private final long droppedMessages;
+    private final NatsConfig.SubscriptionConfig.PendingLimit pendingLimit;
+    private final long queuedMessages;
+    private final long queuedBytes;
+    private final long overflowDropped;
+    private final long coalescedMessages;
+    private final Delivery delivery;
+
+    public SubscriptionStats(@NotNull String subject, @Nullable String queueGroup, @NotNull String dispatcher,
+                             boolean async, boolean active, long pendingMessages, long pendingBytes,
+                             long deliveredMessages, long droppedMessages) {
+        this(subject, queueGroup, dispatcher, async, active, pendingMessages, pendingBytes, deliveredMessages,
+                droppedMessages, Delivery.DIRECT, null, 0, 0, 0, 0);
+    }
+
+    public SubscriptionStats(@NotNull String subject, @Nullable String queueGroup, @NotNull String dispatcher,
+                             boolean async, boolean active, long pendingMessages, long pendingBytes,
+                             long deliveredMessages, long droppedMessages, @NotNull Delivery delivery,
+                             @Nullable NatsConfig.SubscriptionConfig.PendingLimit pendingLimit,
+                             long queuedMessages, long queuedBytes, long overflowDropped, long coalescedMessages) {
+        this.subject = subject;
+        this.queueGroup = queueGroup;
+        this.dispatcher = dispatcher;
+        this.async = async;
+        this.active = active;
+        this.pendingMessages = pendingMessages;
+        this.pendingBytes = pendingBytes;
+        this.deliveredMessages = deliveredMessages;
+        this.droppedMessages = droppedMessages;
+        this.delivery = delivery;
+        this.pendingLimit = pendingLimit;
+        this.queuedMessages = queuedMessages;
+        this.queuedBytes = queuedBytes;
+        this.overflowDropped = overflowDropped;
+        this.coalescedMessages = coalescedMessages;
+    }
+
+    @NotNull
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * Gets the queue group of this subscription.
+     *
+     * @return the queue group, or null for a regular subscription
+     */
+    @Nullable
+    public String getQueueGroup() {
+        return queueGroup;
+    }
+
+    /**
+     * Gets the label of the dispatcher serving this subscription
+     * (e.g. "shared-2" or "async-3").
+     */
+    @NotNull
+    public String getDispatcher() {
+        return dispatcher;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public long getPendingMessages() {
+        return pendingMessages;
+    }
+
+    public long getPendingBytes() {
+        return pendingBytes;
+    }
+
+    public long getDeliveredMessages() {
+        return deliveredMessages;
+    }
+
+    public long getDroppedMessages() {
+        return droppedMessages;
+    }
+
+    /**
+     * Gets the pending limit bounding this subscription.
+     *
+     * @return the limit, or null if the subscription is unbounded
+     */
+    @Nullable
+    public NatsConfig.SubscriptionConfig.PendingLimit getPendingLimit() {
+        return pendingLimit;
+    }
+
+    @NotNull
+    public Delivery getDelivery() {
+        return delivery;
+    }
+
+    /**
+     * Gets the number of messages waiting in the bounded queue or in the batches
+     * of this subscription, or the number of keys holding an undelivered value for
+     * a latest-value subscription.
+     */
+    public long getQueuedMessages() {
+        return queuedMessages;
+    }
+
+    public long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    /**
+     * Gets the number of messages discarded by the overflow policy of the pending limit.
+     */
+    public long getOverflowDropped() {
+        return overflowDropped;
+    }
+
+    /**
+     * Gets the number of messages which replaced a pending message of the same
+     * subject (or key, for a latest-value subscription).
+     */
+    public long getCoalescedMessages() {
+        return coalescedMessages;
+    }
+
+    @Override
+    public String toString() {
+        String base = subject + (queueGroup != null ? " (queue " + queueGroup + ")" : "")
+                + " [" + dispatcher + "] pending=" + pendingMessages + " (" + pendingBytes + " bytes)"
+                + ", delivered=" + deliveredMessages + ", dropped=" + droppedMessages;
+        switch (delivery) {
+            case BOUNDED:
+                return base + ", queued=" + queuedMessages + " (" + queuedBytes + " bytes, limit " + pendingLimit
+                        + "), overflowed=" + overflowDropped + ", coalesced=" + coalescedMessages;
+            case LATEST_VALUE:
+                return base + ", latest value: pending keys=" + queuedMessages + ", conflated=" + coalescedMessages;
+            case BATCH:
+                return base + ", batched: buffered=" + queuedMessages;
+            case ORDERED:
+                return base + ", ordered by key";
+            default:
+                return base;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package fr.nhsoul.natsbridge.core;
+
+import fr.nhsoul.natsbridge.common.logger.NatsLogger;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+
+/**
+ * Logger keeping the formatted messages in memory, for tests that cannot rely on
+ * an SLF4J binding.
+ */
+public class CapturingLogger implements NatsLogger {
+
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void info(String message, Object... args) {
+        messages.add("INFO " + format(message, args));
+    }
+
+    @Override
+    public void warn(String message, Object... args) {
+        messages.add("WARN " + format(message, args));
+    }
+
+    @Override
+    public void error(String message, Throwable throwable, Object... args) {
+        messages.add("ERROR " + format(message, args));
+    }
+
+    @Override
+    public void debug(String message, Object... args) {
+        messages.add("DEBUG " + format(message, args));
+    }
+
+    /**
+     * Gets the messages logged so far, prefixed with their level.
+     */
+    public List<String> getMessages() {
+        return messages;
+    }
+}
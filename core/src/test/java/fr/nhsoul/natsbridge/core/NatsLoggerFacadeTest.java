@@ -0,0 +1,63 @@
+package fr.nhsoul.natsbridge.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+
+class NatsLoggerFacadeTest {
+
+    @Test
+    void countsTheMessagesLoggedPerLevel() {
+        CapturingLogger delegate = new CapturingLogger();
+        NatsLoggerFacade facade = new NatsLoggerFacade(delegate);
+
+        facade.info("a");
+        facade.info("b");
+        facade.warn("c");
+        facade.error("d", null);
+        facade.debug("e");
+
+        assertEquals(5, delegate.getMessages().size());
+        assertEquals(2L, facade.getInfoCount());
+        assertEquals(1L, facade.getWarnCount());
+        assertEquals(1L, facade.getErrorCount());
+        assertEquals(1L, facade.getDebugCount());
+        assertEquals("info=2, warn=1, error=1, debug=1", facade.getCountSummary());
+    }
+
+    @Test
+    void doesNotCountMessagesDiscardedByTheDelegate() {
+        CapturingLogger delegate = new CapturingLogger() {
+            @Override
+            public boolean isDebugEnabled() {
+                return false;
+            }
+        };
+        NatsLoggerFacade facade = new NatsLoggerFacade(delegate);
+
+        facade.debug("discarded");
+        facade.info("kept");
+
+        assertEquals(1, delegate.getMessages().size());
+        assertEquals(0L, facade.getDebugCount());
+        assertEquals(1L, facade.getInfoCount());
+    }
+
+    @Test
+    void forwardsToTheCurrentDelegate() {
+        CapturingLogger first = new CapturingLogger();
+        CapturingLogger second = new CapturingLogger();
+        NatsLoggerFacade facade = new NatsLoggerFacade(first);
+
+        facade.info("one");
+        facade.setDelegate(second);
+        facade.info("two {}", 2);
+
+        assertSame(second, facade.getDelegate());
+        assertEquals(1, first.getMessages().size());
+        assertEquals("INFO [NatsBridge] two 2", second.getMessages().get(0));
+        assertEquals(2L, facade.getInfoCount());
+    }
+}
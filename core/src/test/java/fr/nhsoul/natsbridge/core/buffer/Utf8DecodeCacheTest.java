@@ -0,0 +1,68 @@
+package fr.nhsoul.natsbridge.core.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+
+class Utf8DecodeCacheTest {
+
+    @Test
+    void returnsTheCachedStringForEqualContent() {
+        Utf8DecodeCache cache = new Utf8DecodeCache();
+        String first = cache.decode(bytes("ONLINE"));
+
+        assertEquals("ONLINE", first);
+        assertSame(first, cache.decode(bytes("ONLINE")));
+    }
+
+    @Test
+    void decodesMultiByteCharacters() {
+        Utf8DecodeCache cache = new Utf8DecodeCache();
+
+        assertEquals("café", cache.decode(bytes("café")));
+        assertEquals("🎮 joueur", cache.decode(bytes("🎮 joueur")));
+        assertEquals("", cache.decode(new byte[0]));
+    }
+
+    @Test
+    void isNotAffectedByChangesToTheDecodedArray() {
+        Utf8DecodeCache cache = new Utf8DecodeCache();
+        byte[] data = bytes("abc");
+        cache.decode(data);
+        data[2] = 'd';
+
+        assertEquals("abd", cache.decode(data));
+        assertEquals("abc", cache.decode(bytes("abc")));
+    }
+
+    @Test
+    void decodesLongPayloadsWithoutCachingThem() {
+        Utf8DecodeCache cache = new Utf8DecodeCache();
+        String text = "x".repeat(Utf8DecodeCache.MAX_CACHED_LENGTH + 1);
+        String first = cache.decode(bytes(text));
+
+        assertEquals(text, first);
+        assertNotSame(first, cache.decode(bytes(text)));
+    }
+
+    @Test
+    void neverReturnsTheStringOfAnotherPayload() {
+        Utf8DecodeCache cache = new Utf8DecodeCache();
+        // Far more payloads than slots, so many of them share a slot
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 10_000; i++) {
+                String text = "player-" + i;
+                assertEquals(text, cache.decode(bytes(text)));
+            }
+        }
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
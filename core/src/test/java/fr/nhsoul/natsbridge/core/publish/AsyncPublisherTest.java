@@ -0,0 +1,138 @@
+package fr.nhsoul.natsbridge.core.publish;
+
+import fr.nhsoul.natsbridge.common.config.NatsConfig;
+import fr.nhsoul.natsbridge.common.config.NatsConfig.PublishConfig;
+import fr.nhsoul.natsbridge.common.exception.NatsException;
+import fr.nhsoul.natsbridge.common.logger.NatsLogger;
+import fr.nhsoul.natsbridge.core.CapturingLogger;
+import fr.nhsoul.natsbridge.core.connection.NatsConnectionManager;
+import io.nats.client.Connection;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+
+class AsyncPublisherTest {
+
+    private static final NatsLogger LOGGER = new CapturingLogger();
+
+    // Every subject is batched, and only flushed on acknowledgement
+    private static final PublishConfig PUBLISH = PublishConfig.builder()
+            .batching(List.of(new PublishConfig.BatchingRule("", 1000, 1 << 20, 60_000)))
+            .async(new PublishConfig.AsyncConfig(PublishConfig.AsyncConfig.ExecutorType.PLATFORM, 2, 100, 1000))
+            .lanes(List.of(new PublishConfig.Lane("bulk", List.of("analytics.>"))))
+            .build();
+
+    @Test
+    void completesBatchedPublicationsOnceFlushed() throws Exception {
+        Map<String, Connection> connections = new HashMap<>();
+        connections.put(PublishConfig.Lane.DEFAULT, connection(false));
+        connections.put("bulk", connection(false));
+        Publishers publishers = new Publishers(connections);
+
+        try {
+            assertNull(publishers.publish("analytics.clicks").get(5, TimeUnit.SECONDS));
+            assertNull(publishers.publish("game.chat").get(5, TimeUnit.SECONDS));
+            assertEquals(0L, publishers.batching.getDroppedCount());
+        } finally {
+            publishers.shutdown();
+        }
+    }
+
+    @Test
+    void failsBatchedPublicationsDroppedByTheirLane() throws Exception {
+        Map<String, Connection> connections = new HashMap<>();
+        connections.put(PublishConfig.Lane.DEFAULT, connection(false));
+        connections.put("bulk", connection(true));
+        Publishers publishers = new Publishers(connections);
+
+        try {
+            CompletableFuture<Void> future = publishers.publish("analytics.clicks");
+
+            ExecutionException failure = assertThrows(ExecutionException.class,
+                    () -> future.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(NatsException.PublishException.class, failure.getCause());
+            assertEquals(1L, publishers.batching.getDroppedCount("bulk"));
+        } finally {
+            publishers.shutdown();
+        }
+    }
+
+    @Test
+    void dropsOnAnotherLaneDoNotFailPublications() throws Exception {
+        Map<String, Connection> connections = new HashMap<>();
+        connections.put(PublishConfig.Lane.DEFAULT, connection(false));
+        connections.put("bulk", connection(true));
+        Publishers publishers = new Publishers(connections);
+
+        try {
+            CompletableFuture<Void> dropped = publishers.publish("analytics.clicks");
+            assertThrows(ExecutionException.class, () -> dropped.get(5, TimeUnit.SECONDS));
+
+            assertNull(publishers.publish("game.chat").get(5, TimeUnit.SECONDS));
+            assertEquals(0L, publishers.batching.getDroppedCount(PublishConfig.Lane.DEFAULT));
+        } finally {
+            publishers.shutdown();
+        }
+    }
+
+    /**
+     * A connection acknowledging every flush, whose publications fail if requested.
+     */
+    private static Connection connection(boolean failPublish) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "publish":
+                            if (failPublish) {
+                                throw new IllegalStateException("Output queue is full");
+                            }
+                            return null;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static final class Publishers {
+        final BatchingPublisher batching;
+        final AsyncPublisher async;
+
+        Publishers(Map<String, Connection> connections) {
+            NatsConfig config = new NatsConfig(List.of("nats://localhost:4222"), null, null,
+                    new NatsConfig.ReconnectConfig(1, 1, 1), NatsConfig.SubscriptionConfig.defaults(), PUBLISH);
+            NatsConnectionManager connectionManager = new NatsConnectionManager(config, LOGGER) {
+                @Override
+                public Connection getLaneConnection(String lane) {
+                    return connections.get(lane);
+                }
+            };
+            this.batching = new BatchingPublisher(connectionManager, PUBLISH.getBatching(), LOGGER);
+            this.async = new AsyncPublisher(connectionManager, batching, PUBLISH.getAsync(), LOGGER);
+        }
+
+        CompletableFuture<Void> publish(String subject) {
+            return async.submit(subject, () -> batching.offer(subject, new byte[]{1}));
+        }
+
+        void shutdown() {
+            async.shutdown();
+            batching.shutdown();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package fr.nhsoul.natsbridge.core.publish;
+
+import fr.nhsoul.natsbridge.common.config.NatsConfig.PublishConfig.PublishQuota;
+import fr.nhsoul.natsbridge.common.config.NatsConfig.PublishConfig.PublishQuota.OverLimitPolicy;
+import fr.nhsoul.natsbridge.common.exception.NatsException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class PublishQuotaLimiterTest {
+
+    @Test
+    void rejectsPublicationsOverTheQuota() {
+        Limiter limiter = new Limiter(new PublishQuota("test", 2, 0, OverLimitPolicy.REJECT, 0));
+        AtomicInteger published = new AtomicInteger();
+
+        try {
+            limiter.submit(published);
+            limiter.submit(published);
+            assertThrows(NatsException.PublishException.class, () -> limiter.submit(published));
+
+            assertEquals(2, published.get());
+            assertEquals(1L, limiter.quota.getRejectedCount());
+        } finally {
+            limiter.shutdown();
+        }
+    }
+
+    @Test
+    void dropsPublicationsOverTheQuotaUnlessTheyCannotBe() {
+        Limiter limiter = new Limiter(new PublishQuota("test", 1, 0, OverLimitPolicy.DROP, 0));
+        AtomicInteger published = new AtomicInteger();
+
+        try {
+            limiter.submit(published);
+            CompletableFuture<Integer> dropped = limiter.submit(published);
+            assertTrue(dropped.isDone());
+            assertNull(dropped.join());
+
+            // Requests cannot be dropped, they are rejected instead
+            assertThrows(NatsException.PublishException.class, () -> limiter.quota.submit("test.subject", 0, false,
+                    () -> CompletableFuture.completedFuture(published.incrementAndGet())));
+
+            assertEquals(1, published.get());
+            assertEquals(1L, limiter.quota.getDroppedCount());
+            assertEquals(1L, limiter.quota.getRejectedCount());
+        } finally {
+            limiter.shutdown();
+        }
+    }
+
+    @Test
+    void limitsPayloadBytes() {
+        Limiter limiter = new Limiter(new PublishQuota("test", 0, 100, OverLimitPolicy.REJECT, 0));
+
+        try {
+            limiter.quota.submit("test.subject", 60, true, () -> CompletableFuture.completedFuture(null));
+            assertThrows(NatsException.PublishException.class, () -> limiter.quota.submit("test.subject", 60, true,
+                    () -> CompletableFuture.completedFuture(null)));
+        } finally {
+            limiter.shutdown();
+        }
+    }
+
+    @Test
+    void delaysPublicationsInOrderOnTheExecutor() throws Exception {
+        Limiter limiter = new Limiter(new PublishQuota("test", 10, 0, OverLimitPolicy.DELAY, 1000));
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<String> threads = Collections.synchronizedList(new ArrayList<>());
+
+        try {
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 13; i++) {
+                int index = i;
+                futures.add(limiter.quota.submit("test.subject", 0, true, () -> {
+                    order.add(index);
+                    threads.add(Thread.currentThread().getName());
+                    return CompletableFuture.completedFuture(index);
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                assertEquals(i, (int) futures.get(i).get(5, TimeUnit.SECONDS));
+            }
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < 13; i++) {
+                expected.add(i);
+            }
+            assertEquals(expected, order);
+            assertEquals(3L, limiter.quota.getDelayedCount());
+
+            // The delayed publications leave the scheduler thread for the publish executor
+            for (String thread : threads.subList(10, 13)) {
+                assertTrue(thread.startsWith("test-publish"));
+            }
+        } finally {
+            limiter.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsPublicationsThatWouldWaitTooLong() {
+        Limiter limiter = new Limiter(new PublishQuota("test", 10, 0, OverLimitPolicy.DELAY, 150));
+        AtomicInteger published = new AtomicInteger();
+
+        try {
+            for (int i = 0; i < 10; i++) {
+                limiter.submit(published);
+            }
+            CompletableFuture<Integer> delayed = limiter.submit(published);
+            assertFalse(delayed.isDone());
+            assertThrows(NatsException.PublishException.class, () -> limiter.submit(published));
+
+            assertEquals(1L, limiter.quota.getDelayedCount());
+            assertEquals(1L, limiter.quota.getRejectedCount());
+        } finally {
+            limiter.shutdown();
+        }
+    }
+
+    @Test
+    void failsDelayedPublicationsOnceThePublisherIsShutDown() {
+        Limiter limiter = new Limiter(new PublishQuota("test", 1, 0, OverLimitPolicy.DELAY, 1000));
+        AtomicInteger published = new AtomicInteger();
+
+        limiter.submit(published);
+        CompletableFuture<Integer> delayed = limiter.submit(published);
+        limiter.shutdown();
+
+        ExecutionException failure = assertThrows(ExecutionException.class, () -> delayed.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(NatsException.PublishException.class, failure.getCause());
+        assertEquals(1, published.get());
+    }
+
+    private static final class Limiter {
+        final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        final ExecutorService executor = Executors.newFixedThreadPool(2, new NamedThreads());
+        final PublishQuotaLimiter quota;
+
+        Limiter(PublishQuota quota) {
+            this.quota = new PublishQuotaLimiter("test", quota, scheduler, executor);
+        }
+
+        CompletableFuture<Integer> submit(AtomicInteger published) {
+            return quota.submit("test.subject", 0, true,
+                    () -> CompletableFuture.completedFuture(published.incrementAndGet()));
+        }
+
+        // Same order as NatsBridge: the scheduler first, then the publish executor
+        void shutdown() {
+            scheduler.shutdown();
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class NamedThreads implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            return new Thread(runnable, "test-publish-" + counter.getAndIncrement());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.core.CapturingLogger;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static fr.nhsoul.natsbridge.core.subscription.TestMessages.message;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+class BatchDeliveryTest {
+
+    private final List<List<String>> consumed = new ArrayList<>();
+    // Drain and timer tasks run only when the test says so; timers add theirs from the JDK delayer thread
+    private final BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+
+    @Test
+    void closesABatchOnceFull() {
+        BatchDelivery delivery = delivery(2, TimeUnit.MINUTES.toNanos(1));
+        delivery.onMessage(message("stats", "1"));
+        delivery.onMessage(message("stats", "2"));
+        delivery.onMessage(message("stats", "3"));
+
+        runQueued();
+        assertEquals(List.of(List.of("1", "2")), consumed);
+        assertEquals(1, delivery.getBufferedMessages());
+    }
+
+    @Test
+    void closesABatchAfterTheMaximumWait() throws Exception {
+        BatchDelivery delivery = delivery(10, TimeUnit.MILLISECONDS.toNanos(20));
+        delivery.onMessage(message("stats", "1"));
+
+        // The timer task, then the drain task it starts
+        runNext();
+        runNext();
+        assertEquals(List.of(List.of("1")), consumed);
+        assertEquals(0, delivery.getBufferedMessages());
+    }
+
+    @Test
+    void timerOfAFullBatchDoesNotCloseTheNextOne() throws Exception {
+        BatchDelivery delivery = delivery(2, TimeUnit.MILLISECONDS.toNanos(100));
+        delivery.onMessage(message("stats", "1"));
+        delivery.onMessage(message("stats", "2"));
+        Thread.sleep(50);
+        delivery.onMessage(message("stats", "3"));
+
+        // Drain task of the full batch
+        runNext();
+        assertEquals(List.of(List.of("1", "2")), consumed);
+
+        // Timer of the full batch: the next batch is left alone
+        runNext();
+        assertEquals(1, delivery.getBufferedMessages());
+
+        // Timer of the next batch, then its drain task
+        runNext();
+        runNext();
+        assertEquals(List.of(List.of("1", "2"), List.of("3")), consumed);
+    }
+
+    @Test
+    void closeDiscardsUndeliveredMessages() {
+        BatchDelivery delivery = delivery(2, TimeUnit.MINUTES.toNanos(1));
+        delivery.onMessage(message("stats", "1"));
+        delivery.onMessage(message("stats", "2"));
+        delivery.onMessage(message("stats", "3"));
+
+        assertEquals(3, delivery.close());
+        delivery.onMessage(message("stats", "4"));
+        runQueued();
+        assertEquals(List.of(), consumed);
+        assertEquals(0, delivery.getBufferedMessages());
+    }
+
+    private BatchDelivery delivery(int maxBatch, long maxWaitNanos) {
+        return new BatchDelivery("stats", maxBatch, maxWaitNanos, batch -> {
+            List<String> payloads = new ArrayList<>();
+            for (byte[] data : batch) {
+                payloads.add(new String(data, StandardCharsets.UTF_8));
+            }
+            consumed.add(payloads);
+        }, tasks::add, new CapturingLogger());
+    }
+
+    private void runQueued() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    private void runNext() throws InterruptedException {
+        Runnable task = tasks.poll(5, TimeUnit.SECONDS);
+        if (task == null) {
+            throw new AssertionError("No task was queued");
+        }
+        task.run();
+    }
+}
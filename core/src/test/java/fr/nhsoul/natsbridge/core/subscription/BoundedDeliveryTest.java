@@ -0,0 +1,138 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.common.config.NatsConfig.SubscriptionConfig.PendingLimit;
+import fr.nhsoul.natsbridge.common.config.NatsConfig.SubscriptionConfig.PendingLimit.OverflowPolicy;
+import fr.nhsoul.natsbridge.core.CapturingLogger;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static fr.nhsoul.natsbridge.core.subscription.TestMessages.message;
+import static fr.nhsoul.natsbridge.core.subscription.TestMessages.payload;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+class BoundedDeliveryTest {
+
+    private final List<String> consumed = new ArrayList<>();
+    // Drain tasks run only when the test says so
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @Test
+    void dropOldestKeepsTheLatestMessages() {
+        BoundedDelivery delivery = delivery(new PendingLimit("game.>", 2, 0, OverflowPolicy.DROP_OLDEST));
+        delivery.onMessage(message("game.a", "1"));
+        delivery.onMessage(message("game.a", "2"));
+        delivery.onMessage(message("game.a", "3"));
+
+        drain();
+        assertEquals(List.of("game.a:2", "game.a:3"), consumed);
+        assertEquals(1L, delivery.getDroppedCount());
+    }
+
+    @Test
+    void dropNewestKeepsTheEarliestMessages() {
+        BoundedDelivery delivery = delivery(new PendingLimit("game.>", 2, 0, OverflowPolicy.DROP_NEWEST));
+        delivery.onMessage(message("game.a", "1"));
+        delivery.onMessage(message("game.a", "2"));
+        delivery.onMessage(message("game.a", "3"));
+
+        drain();
+        assertEquals(List.of("game.a:1", "game.a:2"), consumed);
+        assertEquals(1L, delivery.getDroppedCount());
+    }
+
+    @Test
+    void byteLimitAcceptsAnOversizedMessageInAnEmptyQueue() {
+        BoundedDelivery delivery = delivery(new PendingLimit("game.>", 10, 4, OverflowPolicy.DROP_OLDEST));
+        delivery.onMessage(message("game.a", "123456"));
+        assertEquals(6L, delivery.getQueuedBytes());
+
+        delivery.onMessage(message("game.a", "12"));
+        assertEquals(1, delivery.getQueuedMessages());
+        assertEquals(2L, delivery.getQueuedBytes());
+        assertEquals(1L, delivery.getDroppedCount());
+    }
+
+    @Test
+    void coalesceReplacesThePendingMessageOfTheSameSubject() {
+        BoundedDelivery delivery = delivery(new PendingLimit("game.>", 2, 0, OverflowPolicy.COALESCE));
+        delivery.onMessage(message("game.a", "1"));
+        delivery.onMessage(message("game.b", "x"));
+        delivery.onMessage(message("game.a", "222"));
+
+        // The replacement keeps the place of the message it replaced
+        assertEquals(2, delivery.getQueuedMessages());
+        assertEquals(4L, delivery.getQueuedBytes());
+        drain();
+        assertEquals(List.of("game.a:222", "game.b:x"), consumed);
+        assertEquals(1L, delivery.getCoalescedCount());
+        assertEquals(0L, delivery.getDroppedCount());
+        assertEquals(0L, delivery.getQueuedBytes());
+    }
+
+    @Test
+    void coalesceDropsTheOldestMessageForANewSubject() {
+        BoundedDelivery delivery = delivery(new PendingLimit("game.>", 2, 0, OverflowPolicy.COALESCE));
+        delivery.onMessage(message("game.a", "1"));
+        delivery.onMessage(message("game.b", "1"));
+        delivery.onMessage(message("game.c", "1"));
+        // game.a was dropped: nothing left to coalesce with
+        delivery.onMessage(message("game.a", "2"));
+
+        drain();
+        assertEquals(List.of("game.c:1", "game.a:2"), consumed);
+        assertEquals(0L, delivery.getCoalescedCount());
+        assertEquals(2L, delivery.getDroppedCount());
+    }
+
+    @Test
+    void coalesceStaysWithinTheByteLimit() {
+        BoundedDelivery delivery = delivery(new PendingLimit("game.>", 10, 4, OverflowPolicy.COALESCE));
+        delivery.onMessage(message("game.a", "1"));
+        delivery.onMessage(message("game.b", "22"));
+        // Growing game.b to 4 bytes leaves no room for game.a
+        delivery.onMessage(message("game.b", "4444"));
+
+        assertEquals(1, delivery.getQueuedMessages());
+        assertEquals(4L, delivery.getQueuedBytes());
+        drain();
+        assertEquals(List.of("game.b:4444"), consumed);
+        assertEquals(1L, delivery.getCoalescedCount());
+        assertEquals(1L, delivery.getDroppedCount());
+    }
+
+    @Test
+    void closeReleasesBlockedDispatchersAndDropsLaterMessages() throws Exception {
+        BoundedDelivery delivery = delivery(new PendingLimit("game.>", 1, 0, OverflowPolicy.BLOCK));
+        delivery.onMessage(message("game.a", "1"));
+
+        Thread dispatcher = new Thread(() -> delivery.onMessage(message("game.a", "2")));
+        dispatcher.start();
+        while (dispatcher.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+
+        assertEquals(1, delivery.close());
+        dispatcher.join(5000);
+        assertEquals(Thread.State.TERMINATED, dispatcher.getState());
+
+        delivery.onMessage(message("game.a", "3"));
+        drain();
+        assertEquals(List.of(), consumed);
+        assertEquals(2L, delivery.getDroppedCount());
+    }
+
+    private BoundedDelivery delivery(PendingLimit limit) {
+        return new BoundedDelivery("game.>", limit,
+                message -> consumed.add(message.getSubject() + ":" + payload(message)), tasks::add,
+                new CapturingLogger());
+    }
+
+    private void drain() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.common.config.NatsConfig.SubscriptionConfig.DispatcherAssignment;
+import fr.nhsoul.natsbridge.core.CapturingLogger;
+import io.nats.client.Connection;
+import io.nats.client.Dispatcher;
+import io.nats.client.MessageHandler;
+import io.nats.client.Subscription;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static fr.nhsoul.natsbridge.core.subscription.TestMessages.message;
+import static fr.nhsoul.natsbridge.core.subscription.TestMessages.payload;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+class InterestRouterTest {
+
+    // Server subscriptions of the stub dispatcher, by subject
+    private final Map<String, MessageHandler> serverSubscriptions = new LinkedHashMap<>();
+    private final List<String> consumed = new ArrayList<>();
+    // Fan-out stripe tasks run only when the test says so
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final CapturingLogger logger = new CapturingLogger();
+    private final InterestRouter router = new InterestRouter(new StripedExecutor(4, tasks::add, logger), logger);
+    private final DispatcherPool pool = new DispatcherPool(connection(), 1, DispatcherAssignment.CONSISTENT_HASH);
+
+    @Test
+    void subscribesOnlyTheSubjectsNotCoveredByAnother() {
+        router.reconcile(pool, List.of(def("game.chat.*"), def("game.>"), def("game.chat.global"), def("lobby.x")));
+
+        assertEquals(List.of("game.>", "lobby.x"), List.copyOf(serverSubscriptions.keySet()));
+        assertEquals(2, router.getInterestCount());
+    }
+
+    @Test
+    void fansAMessageOutOnceToEveryMatchingSubscription() throws Exception {
+        router.reconcile(pool, List.of(def("game.>"), def("game.chat.*"), def("game.chat.global"), def("game.state")));
+
+        serverSubscriptions.get("game.>").onMessage(message("game.chat.global", "hello"));
+        // The subscription on the interest subject runs on the dispatcher thread
+        assertEquals(List.of("game.>:hello"), consumed);
+
+        drain();
+        assertEquals(3, consumed.size());
+        assertEquals(List.of("game.>:hello", "game.chat.*:hello", "game.chat.global:hello"), sorted(consumed));
+    }
+
+    @Test
+    void skipsFannedOutMessagesOfUnboundSubscriptions() throws Exception {
+        SubscriptionDefinition chat = def("game.chat.*");
+        router.reconcile(pool, List.of(def("game.>"), chat));
+
+        serverSubscriptions.get("game.>").onMessage(message("game.chat.global", "hello"));
+        chat.unbind();
+        drain();
+
+        assertEquals(List.of("game.>:hello"), consumed);
+    }
+
+    @Test
+    void movesRoutesWhenTheBroaderSubjectGoesAway() throws Exception {
+        SubscriptionDefinition chat = def("game.chat.*");
+        SubscriptionDefinition global = def("game.chat.global");
+        router.reconcile(pool, List.of(def("game.>"), chat, global));
+        router.reconcile(pool, List.of(chat, global));
+
+        assertEquals(List.of("game.chat.*"), List.copyOf(serverSubscriptions.keySet()));
+        serverSubscriptions.get("game.chat.*").onMessage(message("game.chat.global", "hi"));
+        drain();
+        assertEquals(List.of("game.chat.*:hi", "game.chat.global:hi"), sorted(consumed));
+    }
+
+    private SubscriptionDefinition def(String subject) {
+        return new SubscriptionDefinition(subject, null, msg -> consumed.add(subject + ":" + payload(msg)), false);
+    }
+
+    private void drain() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+
+    private static List<String> sorted(List<String> values) {
+        List<String> copy = new ArrayList<>(values);
+        copy.sort(null);
+        return copy;
+    }
+
+    private Connection connection() {
+        Dispatcher dispatcher = (Dispatcher) Proxy.newProxyInstance(Dispatcher.class.getClassLoader(),
+                new Class<?>[]{Dispatcher.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "subscribe":
+                            String subject = (String) args[0];
+                            serverSubscriptions.put(subject, (MessageHandler) args[args.length - 1]);
+                            return subscription(subject);
+                        case "unsubscribe":
+                            serverSubscriptions.remove(((Subscription) args[0]).getSubject());
+                            return proxy;
+                        case "isActive":
+                            return true;
+                        default:
+                            return defaultValue(proxy, method.getName(), args);
+                    }
+                });
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> method.getName().equals("createDispatcher")
+                        ? dispatcher
+                        : defaultValue(proxy, method.getName(), args));
+    }
+
+    private static Subscription subscription(String subject) {
+        return (Subscription) Proxy.newProxyInstance(Subscription.class.getClassLoader(),
+                new Class<?>[]{Subscription.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getSubject":
+                            return subject;
+                        case "isActive":
+                            return true;
+                        default:
+                            return defaultValue(proxy, method.getName(), args);
+                    }
+                });
+    }
+
+    private static Object defaultValue(Object proxy, String method, Object[] args) {
+        switch (method) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            default:
+                return null;
+        }
+    }
+}
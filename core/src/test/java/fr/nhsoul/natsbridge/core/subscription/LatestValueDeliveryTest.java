@@ -0,0 +1,71 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.core.CapturingLogger;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static fr.nhsoul.natsbridge.core.subscription.TestMessages.message;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+class LatestValueDeliveryTest {
+
+    private final List<String> consumed = new ArrayList<>();
+    // Drain tasks run only when the test says so
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @Test
+    void deliversOnlyTheLatestValueOfEachKey() {
+        LatestValueDelivery delivery = delivery();
+        delivery.onMessage(message("state.a", "1"));
+        delivery.onMessage(message("state.b", "1"));
+        delivery.onMessage(message("state.a", "2"));
+        delivery.onMessage(message("state.a", "3"));
+
+        assertEquals(2, delivery.getPendingKeys());
+        drain();
+        // In the order the keys were first updated
+        assertEquals(List.of("state.a=3", "state.b=1"), consumed);
+        assertEquals(2L, delivery.getConflatedCount());
+        assertEquals(0, delivery.getPendingKeys());
+    }
+
+    @Test
+    void deliversAKeyAgainOnceUpdatedAfterDelivery() {
+        LatestValueDelivery delivery = delivery();
+        delivery.onMessage(message("state.a", "1"));
+        drain();
+        delivery.onMessage(message("state.a", "2"));
+        drain();
+
+        assertEquals(List.of("state.a=1", "state.a=2"), consumed);
+        assertEquals(0L, delivery.getConflatedCount());
+    }
+
+    @Test
+    void closeDiscardsPendingValuesAndIgnoresLaterMessages() {
+        LatestValueDelivery delivery = delivery();
+        delivery.onMessage(message("state.a", "1"));
+        delivery.close();
+        delivery.onMessage(message("state.b", "1"));
+
+        drain();
+        assertEquals(List.of(), consumed);
+        assertEquals(0, delivery.getPendingKeys());
+    }
+
+    private LatestValueDelivery delivery() {
+        return new LatestValueDelivery("state.*", subject -> subject,
+                (key, data) -> consumed.add(key + "=" + new String(data, StandardCharsets.UTF_8)), tasks::add,
+                new CapturingLogger());
+    }
+
+    private void drain() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.core.CapturingLogger;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static fr.nhsoul.natsbridge.core.subscription.TestMessages.message;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+
+class OrderedDeliveryTest {
+
+    private final List<String> consumed = new ArrayList<>();
+    // Stripe drain tasks run only when the test says so
+    private final List<Runnable> tasks = new ArrayList<>();
+    private final CapturingLogger logger = new CapturingLogger();
+    private final StripedExecutor stripes = new StripedExecutor(4, tasks::add, logger);
+
+    @Test
+    void deliversMessagesWithEqualKeysInOrder() {
+        OrderedDelivery delivery = delivery();
+        for (int i = 0; i < 5; i++) {
+            delivery.onMessage(message("player.a", "a" + i));
+            delivery.onMessage(message("player.b", "b" + i));
+        }
+
+        drain();
+        assertEquals(List.of("a0", "a1", "a2", "a3", "a4"), consumed("a"));
+        assertEquals(List.of("b0", "b1", "b2", "b3", "b4"), consumed("b"));
+    }
+
+    @Test
+    void closeSkipsQueuedMessagesAndIgnoresLaterOnes() {
+        OrderedDelivery delivery = delivery();
+        delivery.onMessage(message("player.a", "a0"));
+        delivery.close();
+        delivery.onMessage(message("player.a", "a1"));
+
+        drain();
+        assertEquals(List.of(), consumed);
+        assertEquals(0, stripes.getQueuedTasks());
+    }
+
+    @Test
+    void skipsMessagesWhoseKeyCannotBeExtracted() {
+        OrderedDelivery delivery = new OrderedDelivery("player.*", (subject, data) -> {
+            if (subject.endsWith(".bad")) {
+                throw new IllegalArgumentException("no key");
+            }
+            return subject;
+        }, data -> consumed.add(new String(data, StandardCharsets.UTF_8)), stripes, logger);
+
+        delivery.onMessage(message("player.bad", "x"));
+        delivery.onMessage(message("player.a", "a0"));
+
+        drain();
+        assertEquals(List.of("a0"), consumed);
+        assertEquals(1, logger.getMessages().size());
+    }
+
+    private OrderedDelivery delivery() {
+        return new OrderedDelivery("player.*", (subject, data) -> subject,
+                data -> consumed.add(new String(data, StandardCharsets.UTF_8)), stripes, logger);
+    }
+
+    private List<String> consumed(String prefix) {
+        List<String> matching = new ArrayList<>();
+        for (String payload : consumed) {
+            if (payload.startsWith(prefix)) {
+                matching.add(payload);
+            }
+        }
+        return matching;
+    }
+
+    private void drain() {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import fr.nhsoul.natsbridge.core.CapturingLogger;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class StripedExecutorTest {
+
+    @Test
+    void runsTasksWithEqualKeysOneAtATimeInOrder() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        StripedExecutor stripes = new StripedExecutor(4, pool, new CapturingLogger());
+        int keys = 16;
+        int tasksPerKey = 500;
+        List<List<Integer>> runs = new ArrayList<>();
+        List<AtomicBoolean> running = new ArrayList<>();
+        for (int key = 0; key < keys; key++) {
+            runs.add(new ArrayList<>());
+            running.add(new AtomicBoolean());
+        }
+        AtomicBoolean overlapped = new AtomicBoolean();
+        CountDownLatch done = new CountDownLatch(keys * tasksPerKey);
+
+        try {
+            for (int i = 0; i < tasksPerKey; i++) {
+                for (int key = 0; key < keys; key++) {
+                    int index = i;
+                    int k = key;
+                    stripes.execute("player-" + key, () -> {
+                        if (!running.get(k).compareAndSet(false, true)) {
+                            overlapped.set(true);
+                        }
+                        // Only ever touched by one task at a time if the stripe is serial
+                        runs.get(k).add(index);
+                        running.get(k).set(false);
+                        done.countDown();
+                    });
+                }
+            }
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertFalse(overlapped.get());
+            for (List<Integer> run : runs) {
+                assertEquals(tasksPerKey, run.size());
+                for (int i = 0; i < tasksPerKey; i++) {
+                    assertEquals(i, (int) run.get(i));
+                }
+            }
+            assertEquals(0, stripes.getQueuedTasks());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void keepsRunningAfterAFailingTask() {
+        List<Runnable> tasks = new ArrayList<>();
+        CapturingLogger logger = new CapturingLogger();
+        StripedExecutor stripes = new StripedExecutor(1, tasks::add, logger);
+        AtomicInteger ran = new AtomicInteger();
+
+        stripes.execute("key", () -> {
+            throw new IllegalStateException("boom");
+        });
+        stripes.execute("key", ran::incrementAndGet);
+        drain(tasks);
+
+        assertEquals(1, ran.get());
+        assertEquals(1, logger.getMessages().size());
+    }
+
+    @Test
+    void clearDiscardsTasksNotStarted() {
+        List<Runnable> tasks = new ArrayList<>();
+        StripedExecutor stripes = new StripedExecutor(2, tasks::add, new CapturingLogger());
+        AtomicInteger ran = new AtomicInteger();
+
+        stripes.execute("a", ran::incrementAndGet);
+        stripes.execute("a", ran::incrementAndGet);
+        stripes.execute("b", ran::incrementAndGet);
+        assertEquals(3, stripes.getQueuedTasks());
+
+        assertEquals(3, stripes.clear());
+        drain(tasks);
+        assertEquals(0, ran.get());
+        assertEquals(0, stripes.getQueuedTasks());
+    }
+
+    private static void drain(List<Runnable> tasks) {
+        while (!tasks.isEmpty()) {
+            tasks.remove(0).run();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+
+class SubjectTrieTest {
+
+    @Test
+    void matchesLiteralSubjects() {
+        SubjectTrie<String> trie = new SubjectTrie<>();
+        trie.add("game.chat", "chat");
+        trie.add("game.chat.global", "global");
+
+        assertEquals(List.of("chat"), match(trie, "game.chat"));
+        assertEquals(List.of("global"), match(trie, "game.chat.global"));
+        assertEquals(List.of(), match(trie, "game"));
+        assertEquals(List.of(), match(trie, "game.chatter"));
+    }
+
+    @Test
+    void starMatchesASingleToken() {
+        SubjectTrie<String> trie = new SubjectTrie<>();
+        trie.add("game.*", "star");
+        trie.add("*.chat", "leading");
+
+        assertEquals(List.of("star", "leading"), match(trie, "game.chat"));
+        assertEquals(List.of("star"), match(trie, "game.state"));
+        assertEquals(List.of(), match(trie, "game"));
+        assertEquals(List.of(), match(trie, "game.chat.global"));
+    }
+
+    @Test
+    void tailMatchesOneOrMoreTrailingTokens() {
+        SubjectTrie<String> trie = new SubjectTrie<>();
+        trie.add("game.>", "tail");
+        trie.add(">", "all");
+
+        assertEquals(List.of("all", "tail"), match(trie, "game.chat"));
+        assertEquals(List.of("all", "tail"), match(trie, "game.chat.global"));
+        assertEquals(List.of("all"), match(trie, "game"));
+    }
+
+    @Test
+    void matchesEveryOverlappingPattern() {
+        SubjectTrie<String> trie = new SubjectTrie<>();
+        trie.add("game.>", "tail");
+        trie.add("game.*.global", "star");
+        trie.add("game.chat.global", "literal");
+        trie.add("game.chat.global", "literal-2");
+
+        List<String> matched = match(trie, "game.chat.global");
+        assertEquals(4, matched.size());
+        assertTrue(matched.containsAll(List.of("tail", "star", "literal", "literal-2")));
+        assertEquals(4, trie.size());
+    }
+
+    @Test
+    void coversNarrowerPatterns() {
+        assertTrue(SubjectTrie.covers("game.>", "game.chat"));
+        assertTrue(SubjectTrie.covers("game.>", "game.chat.*"));
+        assertTrue(SubjectTrie.covers("game.>", "game.>"));
+        assertTrue(SubjectTrie.covers("game.*", "game.chat"));
+        assertTrue(SubjectTrie.covers("game.*", "game.*"));
+        assertTrue(SubjectTrie.covers("*.chat", "game.chat"));
+        assertTrue(SubjectTrie.covers(">", "game.>"));
+    }
+
+    @Test
+    void doesNotCoverBroaderOrDisjointPatterns() {
+        assertFalse(SubjectTrie.covers("game.*", "game.>"));
+        assertFalse(SubjectTrie.covers("game.chat", "game.*"));
+        assertFalse(SubjectTrie.covers("game.>", "game"));
+        assertFalse(SubjectTrie.covers("game.*", "game.chat.global"));
+        assertFalse(SubjectTrie.covers("game.chat", "game.state"));
+        assertFalse(SubjectTrie.covers("game.chat.*", "game.chat"));
+    }
+
+    private static List<String> match(SubjectTrie<String> trie, String subject) {
+        List<String> matched = new ArrayList<>();
+        trie.match(subject, matched::add);
+        return matched;
+    }
+}
@@ -0,0 +1,41 @@
+package fr.nhsoul.natsbridge.core.subscription;
+
+import io.nats.client.Message;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Received NATS messages for the delivery tests, with only a subject and a payload.
+ */
+final class TestMessages {
+
+    private TestMessages() {
+    }
+
+    static Message message(String subject, String payload) {
+        byte[] data = payload.getBytes(StandardCharsets.UTF_8);
+        return (Message) Proxy.newProxyInstance(Message.class.getClassLoader(), new Class<?>[]{Message.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getSubject":
+                            return subject;
+                        case "getData":
+                            return data;
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return subject + ":" + payload;
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    static String payload(Message message) {
+        return new String(message.getData(), StandardCharsets.UTF_8);
+    }
+}
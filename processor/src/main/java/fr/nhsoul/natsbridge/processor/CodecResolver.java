@@ -0,0 +1,161 @@
+package fr.nhsoul.natsbridge.processor;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.Map;
+
+
+/**
+ * Resolves the source expressions encoding and decoding a payload type, either
+ * with a built-in codec of {@code fr.nhsoul.natsbridge.common.codec.Codecs} or
+ * with a user {@code NatsCodec}.
+ */
+final class CodecResolver {
+
+    static final String CODECS = "fr.nhsoul.natsbridge.common.codec.Codecs";
+    static final String NATS_CODEC = "fr.nhsoul.natsbridge.common.codec.NatsCodec";
+
+    // Declared types with a built-in codec, by qualified name -> Codecs method suffix
+    private static final Map<String, String> DECLARED = Map.ofEntries(
+            Map.entry("java.lang.String", "String"),
+            Map.entry("java.nio.ByteBuffer", "Buffer"),
+            Map.entry("java.util.UUID", "Uuid"),
+            Map.entry("java.lang.Boolean", "Boolean"),
+            Map.entry("java.lang.Byte", "Byte"),
+            Map.entry("java.lang.Short", "Short"),
+            Map.entry("java.lang.Character", "Char"),
+            Map.entry("java.lang.Integer", "Int"),
+            Map.entry("java.lang.Long", "Long"),
+            Map.entry("java.lang.Float", "Float"),
+            Map.entry("java.lang.Double", "Double"));
+
+    private final Elements elements;
+    private final Types types;
+
+    CodecResolver(Elements elements, Types types) {
+        this.elements = elements;
+        this.types = types;
+    }
+
+    /**
+     * A resolved codec, producing the expressions for a given input expression.
+     */
+    static final class Codec {
+        private final String decodePrefix;
+        private final String decodeSuffix;
+        private final String encodePrefix;
+        // Set for user codecs: the class to instantiate once per binding
+        final String codecClass;
+
+        private Codec(String decodePrefix, String decodeSuffix, String encodePrefix, String codecClass) {
+            this.decodePrefix = decodePrefix;
+            this.decodeSuffix = decodeSuffix;
+            this.encodePrefix = encodePrefix;
+            this.codecClass = codecClass;
+        }
+
+        String decode(String dataExpression) {
+            return decodePrefix + dataExpression + decodeSuffix;
+        }
+
+        String encode(String valueExpression) {
+            return encodePrefix + valueExpression + ")";
+        }
+    }
+
+    /**
+     * Resolves the built-in codec of a type.
+     *
+     * @return the codec, or null if the type has no built-in codec
+     */
+    Codec builtin(TypeMirror type) {
+        String suffix = null;
+        if (type.getKind().isPrimitive()) {
+            suffix = primitiveSuffix(type.getKind());
+        } else if (type.getKind() == TypeKind.ARRAY
+                && ((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE) {
+            suffix = "Bytes";
+        } else if (type.getKind() == TypeKind.DECLARED) {
+            TypeElement element = (TypeElement) ((DeclaredType) type).asElement();
+            if (element.getKind() == ElementKind.ENUM) {
+                String enumType = element.getQualifiedName().toString();
+                return new Codec(CODECS + ".decodeEnum(", ", " + enumType + ".class)",
+                        CODECS + ".encodeEnum(", null);
+            }
+            suffix = DECLARED.get(element.getQualifiedName().toString());
+        }
+
+        if (suffix == null) {
+            return null;
+        }
+        return new Codec(CODECS + ".decode" + suffix + "(", ")", CODECS + ".encode" + suffix + "(", null);
+    }
+
+    /**
+     * Resolves a user codec, referenced through the given local variable.
+     */
+    Codec user(TypeElement codecType, String variable) {
+        return new Codec(variable + ".decode(", ")", variable + ".encode(", codecType.getQualifiedName().toString());
+    }
+
+    /**
+     * Checks that a user codec class can be instantiated by the generated code.
+     *
+     * @return the problem, or null if the class is usable
+     */
+    String validate(TypeElement codecType) {
+        TypeMirror natsCodec = types.erasure(elements.getTypeElement(NATS_CODEC).asType());
+        if (!types.isAssignable(types.erasure(codecType.asType()), natsCodec)) {
+            return codecType + " does not implement NatsCodec";
+        }
+        if (codecType.getModifiers().contains(Modifier.ABSTRACT) || codecType.getKind() != ElementKind.CLASS) {
+            return "codec " + codecType + " must be a concrete class";
+        }
+        if (!codecType.getTypeParameters().isEmpty()) {
+            return "codec " + codecType + " must not be generic";
+        }
+        Element enclosing = codecType.getEnclosingElement();
+        if (enclosing.getKind() != ElementKind.PACKAGE && !codecType.getModifiers().contains(Modifier.STATIC)) {
+            return "codec " + codecType + " must be a top-level or static nested class";
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(codecType.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return null;
+            }
+        }
+        return "codec " + codecType + " needs a public no-arg constructor";
+    }
+
+    private static String primitiveSuffix(TypeKind kind) {
+        switch (kind) {
+            case BOOLEAN:
+                return "Boolean";
+            case BYTE:
+                return "Byte";
+            case SHORT:
+                return "Short";
+            case CHAR:
+                return "Char";
+            case INT:
+                return "Int";
+            case LONG:
+                return "Long";
+            case FLOAT:
+                return "Float";
+            case DOUBLE:
+                return "Double";
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package fr.nhsoul.natsbridge.processor;
+
+import com.google.auto.service.AutoService;
+import fr.nhsoul.natsbridge.common.annotation.NatsBinder;
+import fr.nhsoul.natsbridge.common.annotation.NatsRequestHandler;
+import fr.nhsoul.natsbridge.common.annotation.NatsSubscribe;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.Processor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+
+/**
+ * Generates a {@link NatsBinder} for every class declaring {@link NatsSubscribe}
+ * or {@link NatsRequestHandler} methods.
+ * <p>
+ * The generated binder subscribes each method with a lambda calling it directly
+ * and decoding its payload with a built-in or user codec, so messages are
+ * dispatched without reflection. Binders are listed in
+ * {@code META-INF/services/fr.nhsoul.natsbridge.common.annotation.NatsBinder}
+ * so {@code NatsAPI.registerHandlers} can find them at plugin enable.
+ */
+@AutoService(Processor.class)
+@SupportedAnnotationTypes({
+        "fr.nhsoul.natsbridge.common.annotation.NatsSubscribe",
+        "fr.nhsoul.natsbridge.common.annotation.NatsRequestHandler"
+})
+public class NatsHandlerProcessor extends AbstractProcessor {
+
+    private static final String SERVICE_FILE = "META-INF/services/" + NatsBinder.class.getName();
+    private static final String BINDER_SUFFIX = "_NatsBinder";
+    private static final String NATS_REQUEST = "fr.nhsoul.natsbridge.common.api.NatsRequest";
+    private static final String COMPLETION_STAGE = "java.util.concurrent.CompletionStage";
+
+    private Elements elements;
+    private Types types;
+    private Filer filer;
+    private Messager messager;
+    private CodecResolver codecs;
+
+    // Binders generated during this compilation, written to the index in the last round
+    private final Set<String> generatedBinders = new TreeSet<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+        this.filer = processingEnv.getFiler();
+        this.messager = processingEnv.getMessager();
+        this.codecs = new CodecResolver(elements, types);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeServiceIndex();
+            return false;
+        }
+
+        // Group the annotated methods by declaring class, in declaration order
+        Map<TypeElement, List<ExecutableElement>> methodsByType = new LinkedHashMap<>();
+        collect(roundEnv.getElementsAnnotatedWith(NatsSubscribe.class), methodsByType);
+        collect(roundEnv.getElementsAnnotatedWith(NatsRequestHandler.class), methodsByType);
+
+        for (Map.Entry<TypeElement, List<ExecutableElement>> entry : methodsByType.entrySet()) {
+            generateBinder(entry.getKey(), entry.getValue());
+        }
+        return true;
+    }
+
+    private void collect(Set<? extends Element> annotated, Map<TypeElement, List<ExecutableElement>> methodsByType) {
+        for (Element element : annotated) {
+            if (element.getKind() != ElementKind.METHOD) {
+                continue;
+            }
+            TypeElement type = (TypeElement) element.getEnclosingElement();
+            List<ExecutableElement> methods = methodsByType.computeIfAbsent(type, key -> new ArrayList<>());
+            if (!methods.contains(element)) {
+                methods.add((ExecutableElement) element);
+            }
+        }
+    }
+
+    private void generateBinder(TypeElement type, List<ExecutableElement> methods) {
+        if (!checkAccessible(type)) {
+            return;
+        }
+
+        String packageName = elements.getPackageOf(type).getQualifiedName().toString();
+        String binderName = binderSimpleName(type);
+        String handlerType = types.erasure(type.asType()).toString();
+
+        StringBuilder body = new StringBuilder();
+        int codecCount = 0;
+        boolean valid = true;
+        for (ExecutableElement method : methods) {
+            MethodBinding binding = bindMethod(method, handlerType, codecCount);
+            if (binding == null) {
+                valid = false;
+                continue;
+            }
+            codecCount += binding.codecDeclarations.size();
+            for (String declaration : binding.codecDeclarations) {
+                body.append("        ").append(declaration).append('\n');
+            }
+            body.append("        ").append(binding.statement).append('\n');
+        }
+        if (!valid) {
+            return;
+        }
+
+        String qualifiedBinder = packageName.isEmpty() ? binderName : packageName + "." + binderName;
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n")
+                .append(" * NATS handler binder for {@link ").append(handlerType).append("}.\n")
+                .append(" * Generated by ").append(NatsHandlerProcessor.class.getName()).append(", do not edit.\n")
+                .append(" */\n")
+                .append("@SuppressWarnings({\"unchecked\", \"rawtypes\"})\n")
+                .append("public final class ").append(binderName)
+                .append(" implements ").append(NatsBinder.class.getName()).append(" {\n\n")
+                .append("    @Override\n")
+                .append("    public Class<?> getHandlerType() {\n")
+                .append("        return ").append(handlerType).append(".class;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void bind(Object handler, fr.nhsoul.natsbridge.common.api.NatsAPI api) {\n")
+                .append("        ").append(handlerType).append(" target = (").append(handlerType).append(") handler;\n")
+                .append(body)
+                .append("    }\n")
+                .append("}\n");
+
+        try (Writer writer = filer.createSourceFile(qualifiedBinder, type).openWriter()) {
+            writer.write(source.toString());
+            generatedBinders.add(qualifiedBinder);
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Failed to write " + qualifiedBinder + ": " + e, type);
+        }
+    }
+
+    /**
+     * The generated statements subscribing one method.
+     */
+    private static final class MethodBinding {
+        final List<String> codecDeclarations = new ArrayList<>();
+        String statement;
+    }
+
+    private MethodBinding bindMethod(ExecutableElement method, String handlerType, int codecIndex) {
+        if (method.getModifiers().contains(Modifier.PRIVATE)) {
+            return error(method, "annotated NATS handler methods must not be private");
+        }
+
+        NatsSubscribe subscribe = method.getAnnotation(NatsSubscribe.class);
+        NatsRequestHandler requestHandler = method.getAnnotation(NatsRequestHandler.class);
+        if (subscribe != null && requestHandler != null) {
+            return error(method, "a method cannot be both @NatsSubscribe and @NatsRequestHandler");
+        }
+
+        String receiver = method.getModifiers().contains(Modifier.STATIC) ? handlerType : "target";
+        String call = receiver + "." + method.getSimpleName() + "(";
+        List<? extends VariableElement> parameters = method.getParameters();
+        if (parameters.size() > 1) {
+            return error(method, "annotated NATS handler methods take at most one parameter");
+        }
+
+        MethodBinding binding = new MethodBinding();
+        if (subscribe != null) {
+            String argument = "";
+            if (parameters.size() == 1) {
+                CodecResolver.Codec codec = resolve(method, NatsSubscribe.class, "codec",
+                        parameters.get(0).asType(), codecIndex, binding);
+                if (codec == null) {
+                    return null;
+                }
+                argument = codec.decode("data");
+            }
+            binding.statement = "api.subscribeSubject(" + literal(subscribe.value())
+                    + queueArgument(subscribe.queue()) + ", data -> " + call + argument + "), "
+                    + deliveryArgument(subscribe.queue(), subscribe.async()) + ");";
+            return binding;
+        }
+
+        String subject = literal(requestHandler.value()) + queueArgument(requestHandler.queue());
+        String delivery = deliveryArgument(requestHandler.queue(), requestHandler.async());
+        TypeMirror returnType = method.getReturnType();
+        if (parameters.size() == 1 && isType(parameters.get(0).asType(), NATS_REQUEST)) {
+            if (returnType.getKind() != TypeKind.VOID) {
+                return error(method, "request handlers taking a NatsRequest reply themselves and must return void");
+            }
+            binding.statement = "api.subscribeRequest(" + subject + ", request -> " + call + "request), "
+                    + delivery + ");";
+            return binding;
+        }
+        if (returnType.getKind() == TypeKind.VOID) {
+            return error(method, "request handlers must return the reply, or take a NatsRequest to reply themselves");
+        }
+
+        String argument = "";
+        if (parameters.size() == 1) {
+            CodecResolver.Codec codec = resolve(method, NatsRequestHandler.class, "codec",
+                    parameters.get(0).asType(), codecIndex + binding.codecDeclarations.size(), binding);
+            if (codec == null) {
+                return null;
+            }
+            argument = codec.decode("request.getData()");
+        }
+
+        // A CompletionStage return replies once it completes
+        TypeMirror stageType = completionStageArgument(returnType);
+        TypeMirror replyType = stageType != null ? stageType : returnType;
+        CodecResolver.Codec replyCodec = resolve(method, NatsRequestHandler.class, "replyCodec",
+                replyType, codecIndex + binding.codecDeclarations.size(), binding);
+        if (replyCodec == null) {
+            return null;
+        }
+
+        String invocation = call + argument + ")";
+        if (stageType != null) {
+            binding.statement = "api.subscribeRequest(" + subject + ", request -> " + invocation
+                    + ".thenAccept(reply -> request.reply(" + replyCodec.encode("reply") + ")), "
+                    + delivery + ");";
+        } else {
+            binding.statement = "api.subscribeRequest(" + subject + ", request -> request.reply("
+                    + replyCodec.encode(invocation) + "), " + delivery + ");";
+        }
+        return binding;
+    }
+
+    private CodecResolver.Codec resolve(ExecutableElement method, Class<?> annotation, String attribute,
+                                        TypeMirror type, int codecIndex, MethodBinding binding) {
+        TypeElement userCodec = userCodec(method, annotation, attribute);
+        if (userCodec != null) {
+            String problem = codecs.validate(userCodec);
+            if (problem != null) {
+                error(method, problem);
+                return null;
+            }
+            String variable = "codec" + codecIndex;
+            CodecResolver.Codec codec = codecs.user(userCodec, variable);
+            binding.codecDeclarations.add(codec.codecClass + " " + variable + " = new " + codec.codecClass + "();");
+            return codec;
+        }
+
+        CodecResolver.Codec codec = codecs.builtin(type);
+        if (codec == null) {
+            error(method, "no built-in codec for " + type + ", set " + attribute + " on @"
+                    + annotation.getSimpleName());
+        }
+        return codec;
+    }
+
+    // Class attributes must be read through mirrors, the classes are not loadable here
+    private TypeElement userCodec(ExecutableElement method, Class<?> annotation, String attribute) {
+        for (AnnotationMirror mirror : method.getAnnotationMirrors()) {
+            TypeElement annotationType = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!annotationType.getQualifiedName().contentEquals(annotation.getName())) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                    : mirror.getElementValues().entrySet()) {
+                if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                    TypeMirror value = (TypeMirror) entry.getValue().getValue();
+                    TypeElement codecType = (TypeElement) types.asElement(value);
+                    // The default NatsCodec.class means the built-in codec
+                    return codecType.getQualifiedName().contentEquals(CodecResolver.NATS_CODEC) ? null : codecType;
+                }
+            }
+        }
+        return null;
+    }
+
+    // The T of a CompletionStage<T> return type, or null if the method does not return a stage
+    private TypeMirror completionStageArgument(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        TypeMirror stage = types.erasure(elements.getTypeElement(COMPLETION_STAGE).asType());
+        if (!types.isAssignable(types.erasure(type), stage)) {
+            return null;
+        }
+
+        for (TypeMirror supertype : supertypesOf(type)) {
+            if (types.isSameType(types.erasure(supertype), stage)) {
+                List<? extends TypeMirror> arguments = ((DeclaredType) supertype).getTypeArguments();
+                if (!arguments.isEmpty() && (arguments.get(0).getKind() == TypeKind.DECLARED
+                        || arguments.get(0).getKind() == TypeKind.ARRAY)) {
+                    return arguments.get(0);
+                }
+            }
+        }
+        // Raw or wildcard stage: only a user reply codec can encode it
+        return elements.getTypeElement("java.lang.Object").asType();
+    }
+
+    private List<TypeMirror> supertypesOf(TypeMirror type) {
+        List<TypeMirror> all = new ArrayList<>();
+        all.add(type);
+        for (int i = 0; i < all.size(); i++) {
+            all.addAll(types.directSupertypes(all.get(i)));
+        }
+        return all;
+    }
+
+    private boolean isType(TypeMirror type, String qualifiedName) {
+        return type.getKind() == TypeKind.DECLARED
+                && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().contentEquals(qualifiedName);
+    }
+
+    private boolean checkAccessible(TypeElement type) {
+        for (Element current = type; current.getKind() != ElementKind.PACKAGE; current = current.getEnclosingElement()) {
+            if (current.getModifiers().contains(Modifier.PRIVATE)) {
+                error(type, "classes declaring NATS handler methods must not be private");
+                return false;
+            }
+            if (!(current.getEnclosingElement() instanceof TypeElement)
+                    && !(current.getEnclosingElement() instanceof PackageElement)) {
+                error(type, "classes declaring NATS handler methods cannot be local or anonymous");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String binderSimpleName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element current = type.getEnclosingElement(); current instanceof TypeElement;
+             current = current.getEnclosingElement()) {
+            name.insert(0, ((TypeElement) current).getSimpleName() + "_");
+        }
+        return name.append(BINDER_SUFFIX).toString();
+    }
+
+    private void writeServiceIndex() {
+        if (generatedBinders.isEmpty()) {
+            return;
+        }
+
+        // Keep the entries of binders compiled in a previous incremental build
+        Set<String> entries = new TreeSet<>(generatedBinders);
+        try {
+            FileObject existing = filer.getResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(existing.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.isBlank() && elements.getTypeElement(line.trim()) != null) {
+                        entries.add(line.trim());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // No previous index
+        }
+
+        try (Writer writer = filer.createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE).openWriter()) {
+            for (String entry : entries) {
+                writer.write(entry);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Failed to write " + SERVICE_FILE + ": " + e);
+        }
+    }
+
+    private MethodBinding error(Element element, String message) {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+        return null;
+    }
+
+    // Queue subscriptions use the (subject, queueGroup, consumer, mode) overloads
+    private static String queueArgument(String queue) {
+        return queue.isEmpty() ? "" : ", " + literal(queue);
+    }
+
+    private static String deliveryArgument(String queue, boolean async) {
+        if (queue.isEmpty()) {
+            return String.valueOf(async);
+        }
+        return "fr.nhsoul.natsbridge.common.api.DeliveryMode." + (async ? "ASYNC" : "SYNC");
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\');
+            }
+            literal.append(c);
+        }
+        return literal.append('"').toString();
+    }
+}
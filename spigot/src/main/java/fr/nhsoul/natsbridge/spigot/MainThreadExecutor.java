@@ -0,0 +1,165 @@
+package fr.nhsoul.natsbridge.spigot;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Runs NATS messages on the server thread without scheduling one task per message.
+ * <p>
+ * Messages are queued from the dispatcher threads into a lock-free queue, which a
+ * single repeating task drains once per tick. Draining stops when the configured
+ * time budget is spent, and the remaining messages are carried over to the next
+ * tick, so a burst of messages is spread over several ticks instead of lowering
+ * the TPS.
+ */
+public class MainThreadExecutor implements Executor, Runnable {
+
+    private final Logger logger;
+    private final long budgetNanos;
+
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    // ConcurrentLinkedQueue.size() walks the whole queue
+    private final AtomicInteger depth = new AtomicInteger();
+
+    private final LongAdder executed = new LongAdder();
+    // Written by the server thread only
+    private volatile long lastDrainNanos;
+    private volatile long maxDrainNanos;
+    private volatile long carriedOverTicks;
+
+    private BukkitTask task;
+
+    public MainThreadExecutor(@NotNull Logger logger, long budgetMs) {
+        this.logger = logger;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMs);
+    }
+
+    /**
+     * Starts draining the queue every tick.
+     */
+    public void start(@NotNull Plugin plugin) {
+        this.task = Bukkit.getScheduler().runTaskTimer(plugin, this, 1L, 1L);
+    }
+
+    /**
+     * Stops draining the queue and discards the messages still queued.
+     *
+     * @return the number of discarded messages
+     */
+    public int stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        int discarded = 0;
+        while (queue.poll() != null) {
+            depth.decrementAndGet();
+            discarded++;
+        }
+        return discarded;
+    }
+
+    @Override
+    public void execute(@NotNull Runnable command) {
+        queue.add(command);
+        depth.incrementAndGet();
+    }
+
+    /**
+     * Drains the queue until it is empty or the tick budget is spent.
+     * Called by the scheduler on the server thread.
+     */
+    @Override
+    public void run() {
+        if (queue.isEmpty()) {
+            lastDrainNanos = 0;
+            return;
+        }
+
+        long start = System.nanoTime();
+        long deadline = start + budgetNanos;
+        long now = start;
+        int count = 0;
+        Runnable command;
+        while ((command = queue.poll()) != null) {
+            depth.decrementAndGet();
+            try {
+                command.run();
+            } catch (Throwable t) {
+                logger.log(Level.SEVERE, "Error processing NATS message on the server thread", t);
+            }
+            count++;
+
+            now = System.nanoTime();
+            if (now - deadline >= 0) {
+                break;
+            }
+        }
+
+        long elapsed = now - start;
+        lastDrainNanos = elapsed;
+        if (elapsed > maxDrainNanos) {
+            maxDrainNanos = elapsed;
+        }
+        executed.add(count);
+        if (!queue.isEmpty()) {
+            carriedOverTicks++;
+        }
+    }
+
+    /**
+     * Gets the number of messages waiting for the server thread.
+     */
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    /**
+     * Gets the time spent running messages during the last tick.
+     */
+    public long getLastDrainNanos() {
+        return lastDrainNanos;
+    }
+
+    /**
+     * Gets the longest time spent running messages during a single tick.
+     */
+    public long getMaxDrainNanos() {
+        return maxDrainNanos;
+    }
+
+    /**
+     * Gets the number of messages run on the server thread.
+     */
+    public long getExecutedCount() {
+        return executed.sum();
+    }
+
+    /**
+     * Gets the number of ticks whose budget was spent before the queue was empty.
+     */
+    public long getCarriedOverTicks() {
+        return carriedOverTicks;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("queued=%d, last drain=%.2f ms, max drain=%.2f ms (budget %.1f ms), executed=%d, "
+                        + "ticks over budget=%d",
+                getQueueDepth(), lastDrainNanos / 1_000_000.0, maxDrainNanos / 1_000_000.0,
+                budgetNanos / 1_000_000.0, getExecutedCount(), carriedOverTicks);
+    }
+}
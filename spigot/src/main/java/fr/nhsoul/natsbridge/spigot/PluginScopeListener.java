@@ -0,0 +1,27 @@
+package fr.nhsoul.natsbridge.spigot;
+
+import fr.nhsoul.natsbridge.core.NatsBridge;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.jetbrains.annotations.NotNull;
+
+
+/**
+ * Cancels the NATS subscriptions of a plugin when it is disabled (including
+ * {@code /reload}), so its consumers and class loader are not kept alive.
+ */
+public class PluginScopeListener implements Listener {
+
+    private final NatsBridge natsBridge;
+
+    public PluginScopeListener(@NotNull NatsBridge natsBridge) {
+        this.natsBridge = natsBridge;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent event) {
+        natsBridge.releaseScope(event.getPlugin().getName());
+    }
+}
@@ -1,6 +1,8 @@
 package fr.nhsoul.natsbridge.spigot;
 
 import fr.nhsoul.natsbridge.core.NatsBridge;
+import fr.nhsoul.natsbridge.core.api.ScopedNatsAPI;
+import fr.nhsoul.natsbridge.core.subscription.SubscriptionStats;
 import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -10,7 +12,9 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 
@@ -110,6 +114,11 @@ public class SpigotNatsCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(ChatColor.YELLOW + "Connected: " +
                 (connected ? ChatColor.GREEN + "Yes" : ChatColor.RED + "No"));
         sender.sendMessage(ChatColor.YELLOW + "Status: " + ChatColor.WHITE + status);
+        for (Map.Entry<String, String> lane : natsBridge.getLaneStatuses().entrySet()) {
+            sender.sendMessage(ChatColor.YELLOW + "Lane " + lane.getKey() + ": " + ChatColor.WHITE + lane.getValue());
+        }
+        sender.sendMessage(ChatColor.YELLOW + "Batched messages dropped: " + ChatColor.WHITE +
+                natsBridge.getBatchingPublisher().getDroppedCount());
 
         // Configuration information
         sender.sendMessage(ChatColor.YELLOW + "Servers: " + ChatColor.WHITE +
@@ -126,6 +135,28 @@ public class SpigotNatsCommand implements CommandExecutor, TabCompleter {
         } else {
             sender.sendMessage(ChatColor.YELLOW + "TLS: " + ChatColor.RED + "Disabled");
         }
+
+        sender.sendMessage(ChatColor.YELLOW + "Main thread delivery: " + ChatColor.WHITE +
+                plugin.getMainThreadExecutor());
+        sender.sendMessage(ChatColor.YELLOW + "Ordered deliveries queued: " + ChatColor.WHITE +
+                natsBridge.getSubscriptionManager().getOrderedQueueDepth());
+
+        // Subscription information
+        List<SubscriptionStats> subscriptions = natsBridge.getSubscriptionManager().getSubscriptionStats();
+        sender.sendMessage(ChatColor.YELLOW + "Subscriptions: " + ChatColor.WHITE + subscriptions.size()
+                + " (" + natsBridge.getSubscriptionManager().getServerSubscriptionCount() + " on the server)");
+        for (SubscriptionStats stats : subscriptions) {
+            sender.sendMessage(ChatColor.GRAY + " - " + stats);
+        }
+
+        // Per-plugin accounting
+        Collection<ScopedNatsAPI> scopedAPIs = natsBridge.getScopedAPIs();
+        sender.sendMessage(ChatColor.YELLOW + "Plugins: " + ChatColor.WHITE + scopedAPIs.size());
+        for (ScopedNatsAPI scopedAPI : scopedAPIs) {
+            sender.sendMessage(ChatColor.GRAY + " - " + scopedAPI);
+        }
+        sender.sendMessage(ChatColor.YELLOW + "Log messages: " + ChatColor.WHITE +
+                NatsBridge.getLoggerFacade().getCountSummary());
     }
 
     private void testPublish(@NotNull CommandSender sender, @NotNull String subject, @NotNull String message) {
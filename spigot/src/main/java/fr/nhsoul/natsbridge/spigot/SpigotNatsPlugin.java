@@ -1,8 +1,10 @@
 package fr.nhsoul.natsbridge.spigot;
 
 import fr.nhsoul.natsbridge.common.api.NatsAPI;
+import fr.nhsoul.natsbridge.common.api.NatsSubscription;
 import fr.nhsoul.natsbridge.core.NatsBridge;
 import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.jetbrains.annotations.NotNull;
 
@@ -11,6 +13,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 
@@ -20,9 +23,12 @@ import java.util.logging.Level;
  */
 public class SpigotNatsPlugin extends JavaPlugin {
 
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
     private static SpigotNatsPlugin instance;
 
     private NatsBridge natsBridge;
+    private MainThreadExecutor mainThreadExecutor;
 
     @Override
     public void onEnable() {
@@ -41,6 +47,14 @@ public class SpigotNatsPlugin extends JavaPlugin {
             try {
                 NatsBridge.initialize(configFile, new SpigotNatsLogger(getLogger()));
                 natsBridge = NatsBridge.getInstance();
+
+                mainThreadExecutor = new MainThreadExecutor(getLogger(),
+                        natsBridge.getConfig().getSubscriptions().getMainThreadBudgetMs());
+                mainThreadExecutor.start(this);
+
+                // Releases the NATS API of the plugins disabled from now on
+                getServer().getPluginManager().registerEvents(new PluginScopeListener(natsBridge), this);
+
                 natsBridge.start().thenRun(() -> { // Re-added async start for consistency with original behavior
                     Bukkit.getScheduler().runTask(this, () -> {
                         getLogger().info("NATS library started successfully");
@@ -79,6 +93,14 @@ public class SpigotNatsPlugin extends JavaPlugin {
             natsBridge.shutdown();
         }
 
+        if (mainThreadExecutor != null) {
+            int discarded = mainThreadExecutor.stop();
+            if (discarded > 0) {
+                getLogger().warning("Discarded " + discarded + " NATS messages waiting for the server thread");
+            }
+            mainThreadExecutor = null;
+        }
+
         NatsBridge.resetInstance();
         instance = null;
 
@@ -99,13 +121,59 @@ public class SpigotNatsPlugin extends JavaPlugin {
     }
 
     /**
-     * Gets the NATS API.
+     * Gets the NATS API of the calling plugin.
+     * <p>
+     * The subscriptions made through it are cancelled when the plugin is disabled,
+     * and its traffic is shown by {@code /nats status}. Callers outside of a plugin
+     * get the shared API.
      *
      * @return the NATS API
      */
     @NotNull
     public static NatsAPI getNatsAPI() {
-        return getInstance().getNatsBridge().getAPI();
+        return getNatsAPI(STACK_WALKER.getCallerClass());
+    }
+
+    /**
+     * Gets the NATS API of a plugin. The subscriptions made through it are
+     * cancelled when the plugin is disabled.
+     *
+     * @param plugin the plugin owning the subscriptions
+     * @return the NATS API of the plugin
+     */
+    @NotNull
+    public static NatsAPI getNatsAPI(@NotNull Plugin plugin) {
+        return getInstance().getNatsBridge().getScopedAPI(plugin.getName());
+    }
+
+    /**
+     * Subscribes a Consumer to a NATS subject, running it on the server thread.
+     * <p>
+     * Messages are queued and run once per tick within the configured
+     * {@code main_thread_budget_ms}, in arrival order, so the consumer can use the
+     * Bukkit API without scheduling a task per message.
+     *
+     * @param subject  the NATS subject to subscribe to
+     * @param consumer the Consumer that will process the messages on the server thread
+     * @return a handle unsubscribing this subscription only
+     */
+    public static NatsSubscription subscribeOnMainThread(@NotNull String subject, @NotNull Consumer<byte[]> consumer) {
+        return getNatsAPI(STACK_WALKER.getCallerClass())
+                .subscribeSubject(subject, consumer, getInstance().getMainThreadExecutor());
+    }
+
+    /**
+     * Gets the executor running tasks on the server thread within the per-tick
+     * budget. Can be passed to {@link NatsAPI#subscribeSubject(String, Consumer, java.util.concurrent.Executor)}.
+     *
+     * @return the main thread executor
+     */
+    @NotNull
+    public MainThreadExecutor getMainThreadExecutor() {
+        if (mainThreadExecutor == null) {
+            throw new IllegalStateException("NatsBridge not initialized");
+        }
+        return mainThreadExecutor;
     }
 
     /**
@@ -121,6 +189,19 @@ public class SpigotNatsPlugin extends JavaPlugin {
         return natsBridge;
     }
 
+    private static NatsAPI getNatsAPI(Class<?> caller) {
+        NatsBridge natsBridge = getInstance().getNatsBridge();
+        try {
+            JavaPlugin plugin = JavaPlugin.getProvidingPlugin(caller);
+            if (plugin != instance) {
+                return natsBridge.getScopedAPI(plugin.getName());
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // Not loaded by a plugin, or called while the plugin is constructed
+        }
+        return natsBridge.getAPI();
+    }
+
     private void setupConfigFile() throws IOException {
         if (!getDataFolder().exists()) {
             getDataFolder().mkdirs();
@@ -3,12 +3,16 @@ package fr.nhsoul.natsbridge.velocity;
 import com.velocitypowered.api.command.CommandSource;
 import com.velocitypowered.api.command.SimpleCommand;
 import fr.nhsoul.natsbridge.core.NatsBridge;
+import fr.nhsoul.natsbridge.core.api.ScopedNatsAPI;
+import fr.nhsoul.natsbridge.core.subscription.SubscriptionStats;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 
@@ -120,6 +124,13 @@ public class VelocityNatsCommand implements SimpleCommand {
                         connected ? NamedTextColor.GREEN : NamedTextColor.RED)));
         source.sendMessage(Component.text("Status: ", NamedTextColor.YELLOW)
                 .append(Component.text(status, NamedTextColor.WHITE)));
+        for (Map.Entry<String, String> lane : natsBridge.getLaneStatuses().entrySet()) {
+            source.sendMessage(Component.text("Lane " + lane.getKey() + ": ", NamedTextColor.YELLOW)
+                    .append(Component.text(lane.getValue(), NamedTextColor.WHITE)));
+        }
+        source.sendMessage(Component.text("Batched messages dropped: ", NamedTextColor.YELLOW)
+                .append(Component.text(String.valueOf(natsBridge.getBatchingPublisher().getDroppedCount()),
+                        NamedTextColor.WHITE)));
 
         // Configuration information
         source.sendMessage(Component.text("Servers: ", NamedTextColor.YELLOW)
@@ -140,6 +151,30 @@ public class VelocityNatsCommand implements SimpleCommand {
             source.sendMessage(Component.text("TLS: ", NamedTextColor.YELLOW)
                     .append(Component.text("Disabled", NamedTextColor.RED)));
         }
+
+        source.sendMessage(Component.text("Ordered deliveries queued: ", NamedTextColor.YELLOW)
+                .append(Component.text(String.valueOf(natsBridge.getSubscriptionManager().getOrderedQueueDepth()),
+                        NamedTextColor.WHITE)));
+
+        // Subscription information
+        List<SubscriptionStats> subscriptions = natsBridge.getSubscriptionManager().getSubscriptionStats();
+        source.sendMessage(Component.text("Subscriptions: ", NamedTextColor.YELLOW)
+                .append(Component.text(subscriptions.size() + " ("
+                        + natsBridge.getSubscriptionManager().getServerSubscriptionCount() + " on the server)",
+                        NamedTextColor.WHITE)));
+        for (SubscriptionStats stats : subscriptions) {
+            source.sendMessage(Component.text(" - " + stats, NamedTextColor.GRAY));
+        }
+
+        // Per-plugin accounting
+        Collection<ScopedNatsAPI> scopedAPIs = natsBridge.getScopedAPIs();
+        source.sendMessage(Component.text("Plugins: ", NamedTextColor.YELLOW)
+                .append(Component.text(String.valueOf(scopedAPIs.size()), NamedTextColor.WHITE)));
+        for (ScopedNatsAPI scopedAPI : scopedAPIs) {
+            source.sendMessage(Component.text(" - " + scopedAPI, NamedTextColor.GRAY));
+        }
+        source.sendMessage(Component.text("Log messages: ", NamedTextColor.YELLOW)
+                .append(Component.text(NatsBridge.getLoggerFacade().getCountSummary(), NamedTextColor.WHITE)));
     }
 
     private void testPublish(@NotNull CommandSource source, @NotNull String subject, @NotNull String message) {
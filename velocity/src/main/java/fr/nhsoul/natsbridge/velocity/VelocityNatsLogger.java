@@ -19,16 +19,23 @@ public class VelocityNatsLogger implements NatsLogger {
 
     @Override
     public void info(@NotNull String message, Object... args) {
-        logger.info(format(message, args));
+        if (logger.isInfoEnabled()) {
+            logger.info(format(message, args));
+        }
     }
 
     @Override
     public void warn(@NotNull String message, Object... args) {
-        logger.warn(format(message, args));
+        if (logger.isWarnEnabled()) {
+            logger.warn(format(message, args));
+        }
     }
 
     @Override
     public void error(@NotNull String message, @Nullable Throwable throwable, Object... args) {
+        if (!logger.isErrorEnabled()) {
+            return;
+        }
         if (throwable != null) {
             logger.error(format(message, args), throwable);
         } else {
@@ -38,6 +45,28 @@ public class VelocityNatsLogger implements NatsLogger {
 
     @Override
     public void debug(@NotNull String message, Object... args) {
-        logger.debug(format(message, args));
+        if (logger.isDebugEnabled()) {
+            logger.debug(format(message, args));
+        }
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return logger.isInfoEnabled();
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return logger.isWarnEnabled();
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return logger.isErrorEnabled();
+    }
+
+    @Override
+    public boolean isDebugEnabled() {
+        return logger.isDebugEnabled();
     }
 }
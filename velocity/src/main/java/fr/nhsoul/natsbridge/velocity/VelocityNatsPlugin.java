@@ -5,11 +5,16 @@ import com.velocitypowered.api.event.Subscribe;
 import com.velocitypowered.api.event.proxy.ProxyInitializeEvent;
 import com.velocitypowered.api.event.proxy.ProxyShutdownEvent;
 import com.velocitypowered.api.plugin.Plugin;
+import com.velocitypowered.api.plugin.PluginContainer;
 import com.velocitypowered.api.plugin.annotation.DataDirectory;
+import com.velocitypowered.api.proxy.Player;
 import com.velocitypowered.api.proxy.ProxyServer;
+import fr.nhsoul.natsbridge.common.api.DeliveryRouter;
 import fr.nhsoul.natsbridge.common.api.NatsAPI;
 import fr.nhsoul.natsbridge.core.NatsBridge;
+import fr.nhsoul.natsbridge.core.subscription.EventLoopResolver;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 
 import java.io.File;
@@ -18,6 +23,10 @@ import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 
 /**
@@ -28,6 +37,8 @@ import java.nio.file.StandardCopyOption;
         "NhPro" })
 public class VelocityNatsPlugin {
 
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
     private static VelocityNatsPlugin instance;
 
     private final ProxyServer server;
@@ -36,6 +47,10 @@ public class VelocityNatsPlugin {
 
     private NatsBridge natsBridge;
 
+    // Resolves the Netty event loop of a player connection (ConnectedPlayer.getConnection().eventLoop())
+    private final EventLoopResolver eventLoops = new EventLoopResolver(NatsBridge.getLoggerFacade(),
+            "getConnection", "eventLoop");
+
     @Inject
     public VelocityNatsPlugin(ProxyServer server, Logger logger, @DataDirectory Path dataDirectory) {
         this.server = server;
@@ -110,13 +125,75 @@ public class VelocityNatsPlugin {
     }
 
     /**
-     * Gets the NATS API.
+     * Gets the NATS API of the calling plugin.
+     * <p>
+     * Its traffic is shown by {@code /nats status}, and its subscriptions can be
+     * cancelled at once with {@link NatsBridge#releaseScope(String)} (they are on
+     * proxy shutdown). Callers outside of a plugin get the shared API.
      *
      * @return the NATS API
      */
     @NotNull
     public static NatsAPI getNatsAPI() {
-        return getInstance().getNatsBridge().getAPI();
+        VelocityNatsPlugin plugin = getInstance();
+        ClassLoader loader = STACK_WALKER.getCallerClass().getClassLoader();
+        if (loader != VelocityNatsPlugin.class.getClassLoader()) {
+            for (PluginContainer container : plugin.server.getPluginManager().getPlugins()) {
+                Object pluginInstance = container.getInstance().orElse(null);
+                if (pluginInstance != null && pluginInstance.getClass().getClassLoader() == loader) {
+                    return plugin.getNatsBridge().getScopedAPI(container.getDescription().getId());
+                }
+            }
+        }
+        return plugin.getNatsBridge().getAPI();
+    }
+
+    /**
+     * Gets the NATS API of a plugin.
+     *
+     * @param pluginInstance the main class instance of the plugin owning the subscriptions
+     * @return the NATS API of the plugin
+     * @throws IllegalArgumentException if the object is not a plugin instance
+     */
+    @NotNull
+    public static NatsAPI getNatsAPI(@NotNull Object pluginInstance) {
+        VelocityNatsPlugin plugin = getInstance();
+        PluginContainer container = plugin.server.getPluginManager().fromInstance(pluginInstance)
+                .orElseThrow(() -> new IllegalArgumentException(pluginInstance + " is not a plugin"));
+        return plugin.getNatsBridge().getScopedAPI(container.getDescription().getId());
+    }
+
+    /**
+     * Gets the Netty event loop owning the connection of a player. Running code
+     * touching that connection on its event loop avoids cross-thread handoffs.
+     *
+     * @param player the player
+     * @return the event loop, or null if it cannot be resolved on this proxy version
+     */
+    @Nullable
+    public Executor getEventLoop(@NotNull Player player) {
+        return eventLoops.resolve(player);
+    }
+
+    /**
+     * Creates a router delivering each message on the event loop of the player it
+     * targets, for {@link NatsAPI#subscribeRouted(String, Consumer, DeliveryRouter)}.
+     * Messages whose player is offline or unknown run on the fallback executor.
+     *
+     * @param playerOf extracts the targeted player from a payload (can return null)
+     * @param fallback the executor used when no player event loop applies
+     * @return the router
+     */
+    @NotNull
+    public static DeliveryRouter playerRouter(@NotNull Function<byte[], UUID> playerOf, @NotNull Executor fallback) {
+        VelocityNatsPlugin plugin = getInstance();
+        ProxyServer proxy = plugin.getServer();
+        return (subject, data) -> {
+            UUID playerId = playerOf.apply(data);
+            Player player = playerId != null ? proxy.getPlayer(playerId).orElse(null) : null;
+            Executor eventLoop = player != null ? plugin.getEventLoop(player) : null;
+            return eventLoop != null ? eventLoop : fallback;
+        };
     }
 
     /**